@@ -3,11 +3,17 @@ package com.couponManagement;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Collections;
+
 @SpringBootApplication
 public class Application {
 
 	public static void main(String[] args) {
-		SpringApplication.run(Application.class, args);
+		SpringApplication application = new SpringApplication(Application.class);
+		// Metrics are readable at /actuator/prometheus unless configured otherwise
+		application.setDefaultProperties(Collections.singletonMap(
+				"management.endpoints.web.exposure.include", "health,prometheus"));
+		application.run(args);
 	}
 
 }
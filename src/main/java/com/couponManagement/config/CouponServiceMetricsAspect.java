@@ -0,0 +1,63 @@
+package com.couponManagement.config;
+
+import com.couponManagement.service.WarmUpContext;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every {@code CouponService} method as {@code coupon.service}, tagged
+ * with the method and the exception thrown, if any, and records how many
+ * repository calls each call made as {@code coupon.service.repository.calls}.
+ * Runs outside the transaction, so commit time is included. Warm-up replays
+ * ({@link WarmUpContext}) are not recorded.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CouponServiceMetricsAspect {
+
+	private final MeterRegistry meterRegistry;
+
+	@Autowired
+	public CouponServiceMetricsAspect(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Around("execution(public * com.couponManagement.service.CouponService.*(..))")
+	public Object timeCouponService(ProceedingJoinPoint joinPoint) throws Throwable {
+		if (WarmUpContext.isActive()) {
+			return joinPoint.proceed();
+		}
+		String method = joinPoint.getSignature().getName();
+		long repositoryCallsBefore = RepositoryCallCounter.current();
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String exception = "none";
+		try {
+			return joinPoint.proceed();
+		} catch (Throwable e) {
+			exception = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			sample.stop(Timer.builder("coupon.service")
+					.description("Coupon service method calls")
+					.tag("method", method)
+					.tag("exception", exception)
+					.register(meterRegistry));
+			DistributionSummary.builder("coupon.service.repository.calls")
+					.description("Repository calls made by one coupon service method call")
+					.tag("method", method)
+					.minimumExpectedValue(1.0)
+					.maximumExpectedValue(10000.0)
+					.register(meterRegistry)
+					.record(RepositoryCallCounter.current() - repositoryCallsBefore);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.couponManagement.config;
+
+import com.couponManagement.entity.BxGyCoupon;
+import com.couponManagement.entity.CartWiseCoupon;
+import com.couponManagement.entity.Coupon;
+import com.couponManagement.entity.Product;
+import com.couponManagement.entity.ProductWiseCoupon;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level and query cache on Ehcache through JCache. Every
+ * region is created here with a bounded heap tier, and Hibernate refuses to
+ * start if a cached entity or collection has no region, so nothing can grow
+ * without limit. Turned off with {@code coupon.hibernate-cache.enabled=false}.
+ * Hit and miss counts are only collected with
+ * {@code coupon.hibernate-cache.statistics=true}.
+ */
+@Configuration
+@ConditionalOnClass(name = "org.ehcache.jsr107.EhcacheCachingProvider")
+@ConditionalOnProperty(name = "coupon.hibernate-cache.enabled", matchIfMissing = true)
+public class HibernateCacheConfig {
+
+	private static final List<String> ENTITY_REGIONS = Arrays.asList(
+			Coupon.class.getName(),
+			CartWiseCoupon.class.getName(),
+			ProductWiseCoupon.class.getName(),
+			BxGyCoupon.class.getName(),
+			BxGyCoupon.class.getName() + ".buyProducts",
+			BxGyCoupon.class.getName() + ".getProducts",
+			Product.class.getName());
+
+	@Bean
+	public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+			@Value("${coupon.hibernate-cache.entity-heap-entries:10000}") long entityHeapEntries,
+			@Value("${coupon.hibernate-cache.query-heap-entries:1000}") long queryHeapEntries,
+			@Value("${coupon.hibernate-cache.statistics:false}") boolean statistics) {
+		return properties -> {
+			properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+			properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+			properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+			// Hibernate closes the manager along with the session factory
+			properties.put(ConfigSettings.CACHE_MANAGER, createCacheManager(entityHeapEntries, queryHeapEntries));
+			properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+			// Hit ratios are reported from Hibernate's statistics, which cost a
+			// little on every session, so they are opt-in
+			if (statistics) {
+				properties.putIfAbsent(AvailableSettings.GENERATE_STATISTICS, true);
+			}
+			// With statistics on, Hibernate would otherwise log a metrics block
+			// for every session, including each change-log poll
+			properties.putIfAbsent(AvailableSettings.LOG_SESSION_METRICS, false);
+		};
+	}
+
+	private static CacheManager createCacheManager(long entityHeapEntries, long queryHeapEntries) {
+		ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+		for (String region : ENTITY_REGIONS) {
+			configuration = configuration.withCache(region, region(entityHeapEntries));
+		}
+		configuration = configuration
+				.withCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queryHeapEntries))
+				// One entry per table, so the bound is never reached
+				.withCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(queryHeapEntries));
+		// A manager of its own per session factory: JCache shares managers by URI
+		// across the JVM, and a shared one would let test contexts on different
+		// databases read each other's entities
+		EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching
+				.getCachingProvider(EhcacheCachingProvider.class.getName());
+		return provider.getCacheManager(URI.create("urn:coupon-management:hibernate:" + UUID.randomUUID()),
+				configuration.build());
+	}
+
+	private static CacheConfiguration<Object, Object> region(long heapEntries) {
+		return CacheConfigurationBuilder
+				.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(heapEntries))
+				.build();
+	}
+}
@@ -0,0 +1,122 @@
+package com.couponManagement.config;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves each id sequence past the ids already in its tables on startup.
+ * <p>
+ * Tables first created with IDENTITY columns already hold ids, while the
+ * sequences that replaced them start at 1. Hibernate's pooled optimizer hands
+ * out the block ending at each sequence value, so a sequence must return at
+ * least {@code max(id) + allocationSize} before its ids are safe. Sequences
+ * already past that are left alone. Entities sharing a sequence, such as the
+ * coupon detail tables, are taken together.
+ * <p>
+ * Where the dialect has no sequences, Hibernate keeps the value in a one-row
+ * table and that row is raised instead. {@code coupon.id-sequences.align=false}
+ * skips the check, for databases migrated by hand (see the README).
+ */
+@Component
+public class IdSequenceAligner {
+
+	private static final Logger log = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+	private final SessionFactoryImplementor sessionFactory;
+	private final JdbcTemplate jdbcTemplate;
+	private final boolean enabled;
+
+	@Autowired
+	public IdSequenceAligner(EntityManagerFactory entityManagerFactory, DataSource dataSource,
+			@Value("${coupon.id-sequences.align:true}") boolean enabled) {
+		this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.enabled = enabled;
+	}
+
+	@PostConstruct
+	public void alignOnStartup() {
+		if (enabled) {
+			align();
+		}
+	}
+
+	public void align() {
+		Map<String, IdSequence> sequences = new LinkedHashMap<>();
+		for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+			if (!(persister.getIdentifierGenerator() instanceof SequenceStyleGenerator)
+					|| !(persister instanceof AbstractEntityPersister)) {
+				continue;
+			}
+			DatabaseStructure structure = ((SequenceStyleGenerator) persister.getIdentifierGenerator())
+					.getDatabaseStructure();
+			AbstractEntityPersister entityPersister = (AbstractEntityPersister) persister;
+			sequences.computeIfAbsent(structure.getPhysicalName().render(), name -> new IdSequence(name, structure))
+					.maxIdQueries.add("SELECT MAX(" + entityPersister.getIdentifierColumnNames()[0] + ") FROM "
+							+ entityPersister.getTableName());
+		}
+		for (IdSequence sequence : sequences.values()) {
+			align(sequence);
+		}
+	}
+
+	private void align(IdSequence sequence) {
+		long maxId = 0;
+		for (String query : sequence.maxIdQueries) {
+			Long tableMax = jdbcTemplate.queryForObject(query, Long.class);
+			if (tableMax != null) {
+				maxId = Math.max(maxId, tableMax);
+			}
+		}
+		if (maxId == 0) {
+			return;
+		}
+		long target = maxId + sequence.structure.getIncrementSize();
+
+		if (!sequence.structure.isPhysicalSequence()) {
+			int updated = jdbcTemplate.update("UPDATE " + sequence.name + " SET next_val = ? WHERE next_val < ?",
+					target, target);
+			if (updated > 0) {
+				log.info("Raised id table {} to {}", sequence.name, target);
+			}
+			return;
+		}
+		Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+		// Consumes one value, which only skips a block
+		Long next = jdbcTemplate.queryForObject(dialect.getSequenceNextValString(sequence.name), Long.class);
+		if (next != null && next < target) {
+			jdbcTemplate.execute("ALTER SEQUENCE " + sequence.name + " RESTART WITH " + target);
+			log.info("Restarted sequence {} at {}, past existing id {}", sequence.name, target, maxId);
+		}
+	}
+
+	private static final class IdSequence {
+
+		private final String name;
+		private final DatabaseStructure structure;
+		private final List<String> maxIdQueries = new ArrayList<>();
+
+		private IdSequence(String name, DatabaseStructure structure) {
+			this.name = name;
+			this.structure = structure;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.couponManagement.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Micrometer setup shared by the application's meters. Request timers
+ * ({@code http.server.requests}, tagged by endpoint) and every
+ * {@code coupon.*} timer and summary publish percentile histograms, so
+ * percentiles can be aggregated across instances from the Prometheus
+ * endpoint; {@code coupon.metrics.percentile-histograms=false} turns them off.
+ * Repositories report their calls to {@link RepositoryCallCounter}.
+ */
+@Configuration
+public class MetricsConfig {
+
+	private static final String HTTP_SERVER_REQUESTS = "http.server.requests";
+	private static final String COUPON_METER_PREFIX = "coupon.";
+
+	@Bean
+	public MeterFilter percentileHistogramMeterFilter(
+			@Value("${coupon.metrics.percentile-histograms:true}") boolean percentileHistograms) {
+		return new MeterFilter() {
+			@Override
+			public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+				String name = id.getName();
+				if (!percentileHistograms
+						|| !(name.equals(HTTP_SERVER_REQUESTS) || name.startsWith(COUPON_METER_PREFIX))) {
+					return config;
+				}
+				return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+			}
+		};
+	}
+
+	// Static, as post-processors are created before the rest of the configuration
+	@Bean
+	public static BeanPostProcessor repositoryCallCounterPostProcessor() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof RepositoryFactoryBeanSupport) {
+					((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(
+							factory -> factory.addInvocationListener(RepositoryCallCounter.INSTANCE));
+				}
+				return bean;
+			}
+		};
+	}
+}
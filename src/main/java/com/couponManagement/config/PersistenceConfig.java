@@ -0,0 +1,29 @@
+package com.couponManagement.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate settings the bulk coupon import and batched collection loading
+ * depend on. Values given explicitly under spring.jpa.properties take
+ * precedence.
+ */
+@Configuration
+public class PersistenceConfig {
+
+	@Bean
+	public HibernatePropertiesCustomizer batchingCustomizer(
+			@Value("${coupon.bulk.batch-size:500}") int batchSize) {
+		return properties -> {
+			properties.putIfAbsent("hibernate.jdbc.batch_size", batchSize);
+			// Groups inserts by table, so coupons and their details interleaved
+			// in the persistence context still form whole batches
+			properties.putIfAbsent("hibernate.order_inserts", true);
+			// Batch loads fetch exactly the pending collections in one query,
+			// instead of splitting them into the legacy fixed batch sizes
+			properties.putIfAbsent("hibernate.batch_fetch_style", "DYNAMIC");
+		};
+	}
+}
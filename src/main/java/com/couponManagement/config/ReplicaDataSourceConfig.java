@@ -0,0 +1,79 @@
+package com.couponManagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to replica pools when
+ * {@code coupon.datasource.replica.urls} lists one or more JDBC URLs. Replicas
+ * use the primary's driver and, unless given their own, its credentials.
+ * Without the property the auto-configured single pool is used unchanged.
+ */
+@Configuration
+@ConditionalOnProperty(name = "coupon.datasource.replica.urls")
+public class ReplicaDataSourceConfig {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+			DataSourceProperties properties,
+			@Value("${coupon.datasource.replica.urls}") String urls,
+			@Value("${coupon.datasource.replica.username:${spring.datasource.username:}}") String username,
+			@Value("${coupon.datasource.replica.password:${spring.datasource.password:}}") String password,
+			@Value("${coupon.datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+			@Value("${coupon.datasource.replica.connection-timeout-ms:1000}") long connectionTimeoutMillis,
+			@Value("${coupon.datasource.replica.max-staleness-ms:1000}") long maxStalenessMillis,
+			@Value("${coupon.datasource.replica.lag-query:}") String lagQuery,
+			@Value("${coupon.datasource.replica.check-interval-ms:5000}") long checkIntervalMillis) {
+		List<HikariDataSource> replicas = new ArrayList<>();
+		for (String url : StringUtils.commaDelimitedListToStringArray(urls)) {
+			if (!StringUtils.hasText(url)) {
+				continue;
+			}
+			HikariDataSource replica = DataSourceBuilder.create()
+					.type(HikariDataSource.class)
+					.driverClassName(properties.determineDriverClassName())
+					.url(url.trim())
+					.username(username)
+					.password(password)
+					.build();
+			replica.setPoolName("replica-" + replicas.size());
+			replica.setReadOnly(true);
+			replica.setMaximumPoolSize(maximumPoolSize);
+			// Fail over to the primary quickly rather than queueing for a dead replica
+			replica.setConnectionTimeout(connectionTimeoutMillis);
+			// A replica that is down at startup must not stop the application
+			replica.setInitializationFailTimeout(-1);
+			replicas.add(replica);
+		}
+		if (replicas.isEmpty()) {
+			throw new IllegalStateException("coupon.datasource.replica.urls lists no replicas");
+		}
+		return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxStalenessMillis,
+				StringUtils.hasText(lagQuery) ? lagQuery : null, checkIntervalMillis);
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+	}
+}
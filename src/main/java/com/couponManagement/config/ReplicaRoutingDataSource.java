@@ -0,0 +1,228 @@
+package com.couponManagement.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out replica connections to read-only transactions and primary
+ * connections to everything else. Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so
+ * the connection is only fetched once the transaction's read-only flag is
+ * known.
+ * <p>
+ * Staleness is bounded in two ways. After a read-write transaction commits,
+ * read-only transactions on this node stay on the primary for the maximum
+ * staleness, so callers read their own writes. Replicas are only used after
+ * a health check has passed, and a replica whose lag query reports more than
+ * the maximum staleness, or that fails to hand out a connection, is left out
+ * until a later check passes. With no replica available reads fall back to the
+ * primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+	private final DataSource primary;
+	private final List<Replica> replicas = new ArrayList<>();
+	private final long maxStalenessNanos;
+	private final String lagQuery;
+	private final long checkIntervalMillis;
+	private final AtomicInteger nextReplica = new AtomicInteger();
+	private volatile long lastWriteCommitNanos;
+	private ScheduledExecutorService checker;
+
+	private final LongAdder primaryConnections = new LongAdder();
+	private final LongAdder replicaConnections = new LongAdder();
+	private final LongAdder fallbacks = new LongAdder();
+
+	/**
+	 * @param lagQuery SQL returning the replica's lag in seconds as a single
+	 *                 number, or null to only check that the replica answers
+	 */
+	public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, long maxStalenessMillis,
+			String lagQuery, long checkIntervalMillis) {
+		if (replicas.isEmpty()) {
+			throw new IllegalArgumentException("At least one replica is required");
+		}
+		this.primary = primary;
+		for (DataSource replica : replicas) {
+			this.replicas.add(new Replica(replica));
+		}
+		this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+		this.lagQuery = lagQuery;
+		this.checkIntervalMillis = checkIntervalMillis;
+		this.lastWriteCommitNanos = System.nanoTime() - maxStalenessNanos - 1;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		checkReplicas();
+		checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "replica-health-check");
+			thread.setDaemon(true);
+			return thread;
+		});
+		checker.scheduleWithFixedDelay(this::checkReplicas, checkIntervalMillis, checkIntervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		if (checker != null) {
+			checker.shutdownNow();
+		}
+		for (Replica replica : replicas) {
+			if (replica.dataSource instanceof Closeable) {
+				((Closeable) replica.dataSource).close();
+			}
+		}
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (routeToReplica()) {
+			Connection connection = replicaConnection();
+			if (connection != null) {
+				replicaConnections.increment();
+				return connection;
+			}
+			fallbacks.increment();
+		}
+		primaryConnections.increment();
+		return primary.getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		primaryConnections.increment();
+		return primary.getConnection(username, password);
+	}
+
+	/**
+	 * Runs the health check against every replica and updates which of them
+	 * receive reads. Called periodically; public so it can also be triggered on
+	 * demand.
+	 */
+	public void checkReplicas() {
+		for (int i = 0; i < replicas.size(); i++) {
+			Replica replica = replicas.get(i);
+			boolean available;
+			try (Connection connection = replica.dataSource.getConnection()) {
+				available = lagQuery == null ? connection.isValid(VALIDATION_TIMEOUT_SECONDS)
+						: lagWithinStaleness(connection);
+			} catch (SQLException e) {
+				available = false;
+			}
+			if (replica.available != available) {
+				if (available) {
+					log.info("Replica {} is back in rotation", i);
+				} else {
+					log.warn("Replica {} is unreachable or lagging, reading from the primary instead", i);
+				}
+			}
+			replica.available = available;
+		}
+	}
+
+	public boolean isReplicaAvailable(int index) {
+		return replicas.get(index).available;
+	}
+
+	public long getPrimaryConnectionCount() {
+		return primaryConnections.sum();
+	}
+
+	public long getReplicaConnectionCount() {
+		return replicaConnections.sum();
+	}
+
+	public long getFallbackCount() {
+		return fallbacks.sum();
+	}
+
+	private boolean routeToReplica() {
+		if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+			return false;
+		}
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			recordWriteOnCommit();
+			return false;
+		}
+		return System.nanoTime() - lastWriteCommitNanos > maxStalenessNanos;
+	}
+
+	private void recordWriteOnCommit() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					lastWriteCommitNanos = System.nanoTime();
+				}
+			});
+		}
+	}
+
+	private Connection replicaConnection() {
+		int size = replicas.size();
+		int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+		for (int i = 0; i < size; i++) {
+			Replica replica = replicas.get((start + i) % size);
+			if (!replica.available) {
+				continue;
+			}
+			try {
+				return replica.dataSource.getConnection();
+			} catch (SQLException e) {
+				// Out of rotation until the next health check passes
+				replica.available = false;
+				log.warn("Replica {} failed to provide a connection, reading from the primary instead",
+						(start + i) % size, e);
+			}
+		}
+		return null;
+	}
+
+	private boolean lagWithinStaleness(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(lagQuery)) {
+			if (!resultSet.next()) {
+				return false;
+			}
+			double lagSeconds = resultSet.getDouble(1);
+			// NULL lag means replication is not running
+			return !resultSet.wasNull() && lagSeconds * 1_000_000_000d <= maxStalenessNanos;
+		}
+	}
+
+	private static final class Replica {
+
+		private final DataSource dataSource;
+		// Written by the health check and by failed connection attempts
+		private volatile boolean available;
+
+		private Replica(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.couponManagement.config;
+
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+
+/**
+ * Counts Spring Data repository calls made on each thread, so a service call
+ * can report how many it made by comparing {@link #current()} before and
+ * after. Work handed to other threads reports back through {@link #add}.
+ * Registered with every repository by {@link MetricsConfig}.
+ */
+public final class RepositoryCallCounter implements RepositoryMethodInvocationListener {
+
+	static final RepositoryCallCounter INSTANCE = new RepositoryCallCounter();
+
+	// Only ever grows, so nested calls can each take their own difference
+	private static final ThreadLocal<long[]> CALLS = ThreadLocal.withInitial(() -> new long[1]);
+
+	private RepositoryCallCounter() {
+	}
+
+	public static long current() {
+		return CALLS.get()[0];
+	}
+
+	/**
+	 * Adds calls made on other threads on this thread's behalf, such as pool
+	 * workers it waited for.
+	 */
+	public static void add(long calls) {
+		CALLS.get()[0] += calls;
+	}
+
+	@Override
+	public void afterInvocation(RepositoryMethodInvocation invocation) {
+		CALLS.get()[0]++;
+	}
+}
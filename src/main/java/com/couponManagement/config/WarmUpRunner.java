@@ -0,0 +1,36 @@
+package com.couponManagement.config;
+
+import com.couponManagement.service.WarmUpService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the startup warm-up ({@code coupon.warmup.enabled}). Spring Boot only
+ * switches readiness to {@link ReadinessState#ACCEPTING_TRAFFIC} once every
+ * runner has returned, so the node reports itself unready until warm-up has
+ * finished or timed out, while liveness is unaffected.
+ */
+@Component
+public class WarmUpRunner implements ApplicationRunner {
+
+	private final WarmUpService warmUpService;
+	private final ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	public WarmUpRunner(WarmUpService warmUpService, ApplicationEventPublisher eventPublisher) {
+		this.warmUpService = warmUpService;
+		this.eventPublisher = eventPublisher;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		// Explicit, so the state holds even if the context reported readiness earlier
+		AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+		warmUpService.warmUp();
+	}
+}
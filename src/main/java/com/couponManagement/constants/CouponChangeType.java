@@ -0,0 +1,7 @@
+package com.couponManagement.constants;
+
+public enum CouponChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,27 @@
+package com.couponManagement.controller;
+
+import com.couponManagement.VO.ResultVO;
+import com.couponManagement.constants.ApiResponseCode;
+import com.couponManagement.dto.CacheStatisticsResponse;
+import com.couponManagement.service.CacheStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "*")
+public class CacheStatisticsController {
+
+	private final CacheStatisticsService cacheStatisticsService;
+
+	@Autowired
+	public CacheStatisticsController(CacheStatisticsService cacheStatisticsService) {
+		this.cacheStatisticsService = cacheStatisticsService;
+	}
+
+	@GetMapping("/statistics")
+	public ResultVO getCacheStatistics() {
+		CacheStatisticsResponse statistics = cacheStatisticsService.getCacheStatistics();
+		return new ResultVO(ApiResponseCode.SUCCESS, "Cache statistics retrieved successfully", statistics);
+	}
+}
@@ -3,22 +3,49 @@ package com.couponManagement.controller;
 import com.couponManagement.VO.ResultVO;
 import com.couponManagement.constants.ApiResponseCode;
 import com.couponManagement.dto.*;
+import com.couponManagement.exception.InvalidCouponException;
+import com.couponManagement.exception.PayloadTooLargeException;
 import com.couponManagement.service.CouponService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/")
 @CrossOrigin(origins = "*")
 public class CouponController {
 
+	private static final String NDJSON = "application/x-ndjson";
+
 	private final CouponService couponService;
+	private final ObjectMapper objectMapper;
+	private final Validator validator;
+	private final long batchMaxBodyBytes;
 
 	@Autowired
-	public CouponController(CouponService couponService) {
+	public CouponController(CouponService couponService, ObjectMapper objectMapper, Validator validator,
+			@Value("${coupon.batch.max-body-bytes:16777216}") long batchMaxBodyBytes) {
 		this.couponService = couponService;
+		this.objectMapper = objectMapper;
+		this.validator = validator;
+		this.batchMaxBodyBytes = batchMaxBodyBytes;
 	}
 
 	@PostMapping("createCoupon")
@@ -27,18 +54,63 @@ public class CouponController {
 		return new ResultVO(ApiResponseCode.SUCCESS, "Coupon created successfully", coupon);
 	}
 
+	/**
+	 * Creates one coupon per line of an NDJSON body of create requests. Rows
+	 * that fail are reported in the response without aborting the import.
+	 */
+	@PostMapping(value = "createCoupons/bulk", consumes = NDJSON)
+	public ResultVO createCouponsBulk(InputStream body) {
+		BulkCreateCouponsResponse response = couponService.createCouponsBulk(body);
+		return new ResultVO(ApiResponseCode.SUCCESS, "Bulk coupon import completed", response);
+	}
+
+	/**
+	 * Lists every coupon, or with {@code limit} one keyset page of coupons with
+	 * ids above {@code afterId}.
+	 */
 	@GetMapping("getAllCoupons")
-	public ResultVO getAllCoupons() {
+	public ResultVO getAllCoupons(@RequestParam(required = false) Long afterId,
+			@RequestParam(required = false) Integer limit) {
+		if (limit != null) {
+			CouponPageResponse page = couponService.getCouponPage(afterId != null ? afterId : 0, limit, false);
+			return new ResultVO(ApiResponseCode.SUCCESS, "Coupons retrieved successfully", page);
+		}
 		List<CouponDto> coupons = couponService.getAllCoupons();
 		return new ResultVO(ApiResponseCode.SUCCESS, "Coupons retrieved successfully", coupons);
 	}
 
 	@GetMapping("coupons/active")
-	public ResultVO getActiveCoupons() {
+	public ResultVO getActiveCoupons(@RequestParam(required = false) Long afterId,
+			@RequestParam(required = false) Integer limit) {
+		if (limit != null) {
+			CouponPageResponse page = couponService.getCouponPage(afterId != null ? afterId : 0, limit, true);
+			return new ResultVO(ApiResponseCode.SUCCESS, "Active coupons retrieved successfully", page);
+		}
 		List<CouponDto> coupons = couponService.getActiveCoupons();
 		return new ResultVO(ApiResponseCode.SUCCESS, "Active coupons retrieved successfully", coupons);
 	}
 
+	/**
+	 * Streams all coupons, or only active ones, as one JSON line each in id
+	 * order, writing every coupon as soon as it is read.
+	 */
+	@GetMapping(value = "coupons/export", produces = NDJSON)
+	public ResponseEntity<StreamingResponseBody> exportCoupons(
+			@RequestParam(defaultValue = "false") boolean activeOnly) {
+		StreamingResponseBody body = outputStream -> {
+			couponService.exportCoupons(activeOnly, coupon -> {
+				try {
+					outputStream.write(objectMapper.writeValueAsBytes(coupon));
+					outputStream.write('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			outputStream.flush();
+		};
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+	}
+
 	@GetMapping("coupons/{id}")
 	public ResultVO getCouponById(@PathVariable Long id) {
 		CouponDto coupon = couponService.getCouponById(id);
@@ -59,14 +131,112 @@ public class CouponController {
 	}
 
 	@PostMapping("applicableCoupons")
-	public ResultVO getApplicableCoupons(@Valid @RequestBody CartDto cart) {
-		ApplicableCouponsResponse response = couponService.getApplicableCoupons(cart);
+	public ResultVO getApplicableCoupons(@Valid @RequestBody CartDto cart,
+			@RequestParam(required = false) Integer limit) {
+		ApplicableCouponsResponse response = limit != null ? couponService.getBestCoupons(cart, limit)
+				: couponService.getApplicableCoupons(cart);
 		return new ResultVO(ApiResponseCode.SUCCESS, "Applicable coupons retrieved successfully", response);
 	}
 
+	/**
+	 * Streams one JSON line per cart, in request order, as soon as each chunk of
+	 * the batch has been evaluated.
+	 */
+	@PostMapping(value = "applicableCoupons/batch", produces = NDJSON)
+	public ResponseEntity<StreamingResponseBody> getApplicableCouponsBatch(HttpServletRequest httpRequest)
+			throws IOException {
+		BatchApplicableCouponsRequest request = readBatchRequest(httpRequest);
+		StreamingResponseBody body = outputStream -> {
+			couponService.getApplicableCouponsBatch(request, item -> {
+				try {
+					outputStream.write(objectMapper.writeValueAsBytes(item));
+					outputStream.write('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			outputStream.flush();
+		};
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+	}
+
+	/**
+	 * Reads and validates a batch without ever holding more than
+	 * {@code coupon.batch.max-body-bytes} of it: a declared length above the
+	 * limit is refused before reading, and an undeclared one as soon as the
+	 * limit is passed.
+	 */
+	private BatchApplicableCouponsRequest readBatchRequest(HttpServletRequest httpRequest) throws IOException {
+		if (httpRequest.getContentLengthLong() > batchMaxBodyBytes) {
+			throw batchTooLarge();
+		}
+		BatchApplicableCouponsRequest request;
+		try (InputStream body = new LimitedInputStream(httpRequest.getInputStream(), batchMaxBodyBytes)) {
+			request = objectMapper.readValue(body, BatchApplicableCouponsRequest.class);
+		} catch (JsonProcessingException e) {
+			throw new InvalidCouponException("Malformed batch: " + e.getOriginalMessage());
+		}
+		Set<ConstraintViolation<BatchApplicableCouponsRequest>> violations = validator.validate(request);
+		if (!violations.isEmpty()) {
+			throw new InvalidCouponException("Validation failed: " + violations.stream()
+					.map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", ")));
+		}
+		return request;
+	}
+
+	private PayloadTooLargeException batchTooLarge() {
+		return new PayloadTooLargeException("A batch body can be at most " + batchMaxBodyBytes + " bytes");
+	}
+
+	private final class LimitedInputStream extends FilterInputStream {
+
+		private long remaining;
+
+		private LimitedInputStream(InputStream in, long limit) {
+			super(in);
+			this.remaining = limit;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				consumed(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int count = super.read(buffer, offset, length);
+			if (count > 0) {
+				consumed(count);
+			}
+			return count;
+		}
+
+		private void consumed(long count) {
+			remaining -= count;
+			if (remaining < 0) {
+				throw batchTooLarge();
+			}
+		}
+	}
+
 	@PostMapping("applyCoupon/{id}")
 	public ResultVO applyCoupon(@PathVariable Long id, @Valid @RequestBody CartDto cart) {
 		ApplyCouponResponse response = couponService.applyCoupon(id, cart);
 		return new ResultVO(ApiResponseCode.SUCCESS, "Coupon applied successfully", response);
 	}
+
+	@PostMapping("applyCouponByCode/{couponCode}")
+	public ResponseEntity<ResultVO> applyCouponByCode(@PathVariable String couponCode,
+			@Valid @RequestBody CartDto cart) {
+		// Unknown codes are an expected outcome here, not an exception
+		return couponService.applyCouponByCode(couponCode, cart)
+				.map(response -> ResponseEntity
+						.ok(new ResultVO(ApiResponseCode.SUCCESS, "Coupon applied successfully", response)))
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+						.body(new ResultVO(ApiResponseCode.FAILURE, "Coupon not found with code: " + couponCode)));
+	}
 }
@@ -0,0 +1,26 @@
+package com.couponManagement.controller;
+
+import com.couponManagement.VO.ResultVO;
+import com.couponManagement.constants.ApiResponseCode;
+import com.couponManagement.service.WarmUpService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/warmup")
+@CrossOrigin(origins = "*")
+public class WarmUpController {
+
+	private final WarmUpService warmUpService;
+
+	@Autowired
+	public WarmUpController(WarmUpService warmUpService) {
+		this.warmUpService = warmUpService;
+	}
+
+	@GetMapping
+	public ResultVO getWarmUpReport() {
+		return new ResultVO(ApiResponseCode.SUCCESS, "Warm-up report retrieved successfully",
+				warmUpService.getReport());
+	}
+}
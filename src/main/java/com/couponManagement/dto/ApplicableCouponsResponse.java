@@ -4,6 +4,9 @@ import java.util.List;
 
 public class ApplicableCouponsResponse {
 
+	// Most best coupons a request may ask for
+	public static final int MAX_LIMIT = 100;
+
 	private List<ApplicableCouponDto> applicableCoupons;
 
 	public ApplicableCouponsResponse() {
@@ -0,0 +1,41 @@
+package com.couponManagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * Applicable coupons for one cart of a batch, identified by its position in
+ * the request. {@code error} is set instead of the coupons when the cart could
+ * not be evaluated.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchApplicableCouponsItem extends ApplicableCouponsResponse {
+
+	private int index;
+	private String error;
+
+	public BatchApplicableCouponsItem() {
+	}
+
+	public BatchApplicableCouponsItem(int index, List<ApplicableCouponDto> applicableCoupons, String error) {
+		super(applicableCoupons);
+		this.index = index;
+		this.error = error;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+}
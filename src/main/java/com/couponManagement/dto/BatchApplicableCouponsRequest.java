@@ -0,0 +1,59 @@
+package com.couponManagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class BatchApplicableCouponsRequest {
+
+	public static final int MAX_CARTS = 10000;
+	public static final int MAX_ITEMS_PER_CART = 1000;
+
+	@NotEmpty(message = "Carts cannot be empty")
+	@Size(max = MAX_CARTS, message = "A batch can hold at most " + MAX_CARTS + " carts")
+	@Valid
+	private List<CartDto> carts;
+
+	// Optional: return only the best coupons per cart
+	@Min(value = 1, message = "Limit must be at least 1")
+	@Max(value = ApplicableCouponsResponse.MAX_LIMIT,
+			message = "Limit must be at most " + ApplicableCouponsResponse.MAX_LIMIT)
+	private Integer limit;
+
+	public BatchApplicableCouponsRequest() {
+	}
+
+	public BatchApplicableCouponsRequest(List<CartDto> carts, Integer limit) {
+		this.carts = carts;
+		this.limit = limit;
+	}
+
+	@JsonIgnore
+	@AssertTrue(message = "A batch cart can hold at most " + MAX_ITEMS_PER_CART + " items")
+	public boolean isEachCartWithinItemLimit() {
+		return carts == null || carts.stream()
+				.allMatch(cart -> cart == null || cart.getItems() == null || cart.getItems().size() <= MAX_ITEMS_PER_CART);
+	}
+
+	public List<CartDto> getCarts() {
+		return carts;
+	}
+
+	public void setCarts(List<CartDto> carts) {
+		this.carts = carts;
+	}
+
+	public Integer getLimit() {
+		return limit;
+	}
+
+	public void setLimit(Integer limit) {
+		this.limit = limit;
+	}
+}
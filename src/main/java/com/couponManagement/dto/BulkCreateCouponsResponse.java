@@ -0,0 +1,111 @@
+package com.couponManagement.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk coupon import. Rows that fail are reported by their
+ * 1-based line number and do not stop the rest of the import.
+ */
+public class BulkCreateCouponsResponse {
+
+	public static final int MAX_REPORTED_ERRORS = 1000;
+
+	private long received;
+	private long created;
+	private long failed;
+	private long elapsedMillis;
+	private double couponsPerSecond;
+	// The first failed rows, up to MAX_REPORTED_ERRORS; failed counts all of them
+	private List<BulkCouponError> errors;
+
+	public BulkCreateCouponsResponse() {
+	}
+
+	public BulkCreateCouponsResponse(long received, long created, long failed, long elapsedMillis,
+			List<BulkCouponError> errors) {
+		this.received = received;
+		this.created = created;
+		this.failed = failed;
+		this.elapsedMillis = elapsedMillis;
+		this.couponsPerSecond = elapsedMillis > 0 ? created * 1000.0 / elapsedMillis : created;
+		this.errors = errors;
+	}
+
+	public long getReceived() {
+		return received;
+	}
+
+	public void setReceived(long received) {
+		this.received = received;
+	}
+
+	public long getCreated() {
+		return created;
+	}
+
+	public void setCreated(long created) {
+		this.created = created;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public void setFailed(long failed) {
+		this.failed = failed;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public void setElapsedMillis(long elapsedMillis) {
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public double getCouponsPerSecond() {
+		return couponsPerSecond;
+	}
+
+	public void setCouponsPerSecond(double couponsPerSecond) {
+		this.couponsPerSecond = couponsPerSecond;
+	}
+
+	public List<BulkCouponError> getErrors() {
+		return errors;
+	}
+
+	public void setErrors(List<BulkCouponError> errors) {
+		this.errors = errors;
+	}
+
+	public static class BulkCouponError {
+
+		private long line;
+		private String message;
+
+		public BulkCouponError() {
+		}
+
+		public BulkCouponError(long line, String message) {
+			this.line = line;
+			this.message = message;
+		}
+
+		public long getLine() {
+			return line;
+		}
+
+		public void setLine(long line) {
+			this.line = line;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+}
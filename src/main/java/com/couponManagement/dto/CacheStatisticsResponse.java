@@ -0,0 +1,119 @@
+package com.couponManagement.dto;
+
+import java.util.List;
+
+/**
+ * Hibernate second-level and query cache counters since startup, in total and
+ * per cache region. All counts are zero while statistics are disabled.
+ */
+public class CacheStatisticsResponse {
+
+	private boolean statisticsEnabled;
+	private CacheCounts secondLevelCache;
+	private CacheCounts queryCache;
+	private List<CacheCounts> regions;
+
+	public CacheStatisticsResponse() {
+	}
+
+	public CacheStatisticsResponse(boolean statisticsEnabled, CacheCounts secondLevelCache, CacheCounts queryCache,
+			List<CacheCounts> regions) {
+		this.statisticsEnabled = statisticsEnabled;
+		this.secondLevelCache = secondLevelCache;
+		this.queryCache = queryCache;
+		this.regions = regions;
+	}
+
+	public boolean isStatisticsEnabled() {
+		return statisticsEnabled;
+	}
+
+	public void setStatisticsEnabled(boolean statisticsEnabled) {
+		this.statisticsEnabled = statisticsEnabled;
+	}
+
+	public CacheCounts getSecondLevelCache() {
+		return secondLevelCache;
+	}
+
+	public void setSecondLevelCache(CacheCounts secondLevelCache) {
+		this.secondLevelCache = secondLevelCache;
+	}
+
+	public CacheCounts getQueryCache() {
+		return queryCache;
+	}
+
+	public void setQueryCache(CacheCounts queryCache) {
+		this.queryCache = queryCache;
+	}
+
+	public List<CacheCounts> getRegions() {
+		return regions;
+	}
+
+	public void setRegions(List<CacheCounts> regions) {
+		this.regions = regions;
+	}
+
+	public static class CacheCounts {
+
+		private String name;
+		private long hitCount;
+		private long missCount;
+		private long putCount;
+		// Hits over lookups, or 0 before the first lookup
+		private double hitRatio;
+
+		public CacheCounts() {
+		}
+
+		public CacheCounts(String name, long hitCount, long missCount, long putCount) {
+			this.name = name;
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.putCount = putCount;
+			this.hitRatio = hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public void setHitCount(long hitCount) {
+			this.hitCount = hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		public void setMissCount(long missCount) {
+			this.missCount = missCount;
+		}
+
+		public long getPutCount() {
+			return putCount;
+		}
+
+		public void setPutCount(long putCount) {
+			this.putCount = putCount;
+		}
+
+		public double getHitRatio() {
+			return hitRatio;
+		}
+
+		public void setHitRatio(double hitRatio) {
+			this.hitRatio = hitRatio;
+		}
+	}
+}
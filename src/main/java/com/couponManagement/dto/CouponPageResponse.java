@@ -0,0 +1,40 @@
+package com.couponManagement.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of coupons in id order. {@code nextAfterId} is the
+ * {@code afterId} to request the following page with, or null on the last
+ * page.
+ */
+public class CouponPageResponse {
+
+	public static final int MAX_LIMIT = 1000;
+
+	private List<CouponDto> coupons;
+	private Long nextAfterId;
+
+	public CouponPageResponse() {
+	}
+
+	public CouponPageResponse(List<CouponDto> coupons, Long nextAfterId) {
+		this.coupons = coupons;
+		this.nextAfterId = nextAfterId;
+	}
+
+	public List<CouponDto> getCoupons() {
+		return coupons;
+	}
+
+	public void setCoupons(List<CouponDto> coupons) {
+		this.coupons = coupons;
+	}
+
+	public Long getNextAfterId() {
+		return nextAfterId;
+	}
+
+	public void setNextAfterId(Long nextAfterId) {
+		this.nextAfterId = nextAfterId;
+	}
+}
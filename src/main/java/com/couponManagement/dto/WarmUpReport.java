@@ -0,0 +1,162 @@
+package com.couponManagement.dto;
+
+/**
+ * Outcome of the startup warm-up: how long it ran, how much JIT compilation
+ * it triggered, and the service-layer latency of its first and last rounds.
+ */
+public class WarmUpReport {
+
+	public static final String DISABLED = "DISABLED";
+	public static final String RUNNING = "RUNNING";
+	// Compilation (or, where the JVM cannot report it, latency) settled
+	public static final String STABLE = "STABLE";
+	public static final String TIMED_OUT = "TIMED_OUT";
+	public static final String FAILED = "FAILED";
+
+	private String status;
+	private int carts;
+	private int rounds;
+	private long requests;
+	private long errors;
+	private long durationMillis;
+	// -1 when the JVM does not report compilation time
+	private long compilationMillis;
+	private Latency firstRound;
+	private Latency lastRound;
+
+	public WarmUpReport() {
+	}
+
+	public WarmUpReport(String status) {
+		this.status = status;
+	}
+
+	public WarmUpReport(String status, int carts, int rounds, long requests, long errors, long durationMillis,
+			long compilationMillis, Latency firstRound, Latency lastRound) {
+		this.status = status;
+		this.carts = carts;
+		this.rounds = rounds;
+		this.requests = requests;
+		this.errors = errors;
+		this.durationMillis = durationMillis;
+		this.compilationMillis = compilationMillis;
+		this.firstRound = firstRound;
+		this.lastRound = lastRound;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public int getCarts() {
+		return carts;
+	}
+
+	public void setCarts(int carts) {
+		this.carts = carts;
+	}
+
+	public int getRounds() {
+		return rounds;
+	}
+
+	public void setRounds(int rounds) {
+		this.rounds = rounds;
+	}
+
+	public long getRequests() {
+		return requests;
+	}
+
+	public void setRequests(long requests) {
+		this.requests = requests;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	public void setErrors(long errors) {
+		this.errors = errors;
+	}
+
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	public void setDurationMillis(long durationMillis) {
+		this.durationMillis = durationMillis;
+	}
+
+	public long getCompilationMillis() {
+		return compilationMillis;
+	}
+
+	public void setCompilationMillis(long compilationMillis) {
+		this.compilationMillis = compilationMillis;
+	}
+
+	public Latency getFirstRound() {
+		return firstRound;
+	}
+
+	public void setFirstRound(Latency firstRound) {
+		this.firstRound = firstRound;
+	}
+
+	public Latency getLastRound() {
+		return lastRound;
+	}
+
+	public void setLastRound(Latency lastRound) {
+		this.lastRound = lastRound;
+	}
+
+	/**
+	 * Per-cart latency of one round, covering applicable coupons, applying the
+	 * best one and serializing the responses.
+	 */
+	public static class Latency {
+
+		private long p50Micros;
+		private long p99Micros;
+		private long maxMicros;
+
+		public Latency() {
+		}
+
+		public Latency(long p50Micros, long p99Micros, long maxMicros) {
+			this.p50Micros = p50Micros;
+			this.p99Micros = p99Micros;
+			this.maxMicros = maxMicros;
+		}
+
+		public long getP50Micros() {
+			return p50Micros;
+		}
+
+		public void setP50Micros(long p50Micros) {
+			this.p50Micros = p50Micros;
+		}
+
+		public long getP99Micros() {
+			return p99Micros;
+		}
+
+		public void setP99Micros(long p99Micros) {
+			this.p99Micros = p99Micros;
+		}
+
+		public long getMaxMicros() {
+			return maxMicros;
+		}
+
+		public void setMaxMicros(long maxMicros) {
+			this.maxMicros = maxMicros;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.dto.ApplicableCouponDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent cache of applicable-coupon results keyed by
+ * {@link CartFingerprint}. Fingerprints carry the catalog and price versions,
+ * so a coupon or price change makes every earlier entry unreachable; those
+ * entries are never read again and are the first to go when the cache is over
+ * its bound. Reads take no lock. A maximum size of 0 disables the cache.
+ */
+@Component
+public class ApplicableCouponsCache {
+
+	private final int maximumSize;
+	private final ConcurrentHashMap<CartFingerprint, Entry> entries;
+	private final Object evictionLock = new Object();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	public ApplicableCouponsCache(@Value("${coupon.result-cache.maximum-size:10000}") int maximumSize) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("Result cache size must not be negative");
+		}
+		this.maximumSize = maximumSize;
+		this.entries = new ConcurrentHashMap<>(Math.min(maximumSize, 1024));
+	}
+
+	/**
+	 * Returns the cached result for the fingerprint, or null on a miss.
+	 */
+	public List<ApplicableCouponDto> get(CartFingerprint fingerprint) {
+		if (maximumSize == 0) {
+			return null;
+		}
+		Entry entry = entries.get(fingerprint);
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		entry.referenced = true;
+		hits.increment();
+		return entry.coupons;
+	}
+
+	/**
+	 * Caches the result and returns the read-only list that is now shared by
+	 * every request with the same fingerprint.
+	 */
+	public List<ApplicableCouponDto> put(CartFingerprint fingerprint, List<ApplicableCouponDto> coupons) {
+		List<ApplicableCouponDto> shared = Collections.unmodifiableList(coupons);
+		if (maximumSize > 0) {
+			entries.put(fingerprint, new Entry(shared));
+			if (entries.size() > maximumSize) {
+				evictUnreferenced();
+			}
+		}
+		return shared;
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Second-chance eviction: entries read since the last sweep lose their
+	 * reference bit and survive, the rest are removed until the cache is back
+	 * under its bound.
+	 */
+	private void evictUnreferenced() {
+		synchronized (evictionLock) {
+			while (entries.size() > maximumSize) {
+				Iterator<Map.Entry<CartFingerprint, Entry>> iterator = entries.entrySet().iterator();
+				while (iterator.hasNext() && entries.size() > maximumSize) {
+					Entry entry = iterator.next().getValue();
+					if (entry.referenced) {
+						entry.referenced = false;
+					} else {
+						iterator.remove();
+					}
+				}
+			}
+		}
+	}
+
+	private static final class Entry {
+
+		private final List<ApplicableCouponDto> coupons;
+		private volatile boolean referenced;
+
+		private Entry(List<ApplicableCouponDto> coupons) {
+			this.coupons = coupons;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.couponManagement.engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings. Adds are lock-free and may run
+ * concurrently with lookups; a lookup that races an add can at worst miss
+ * that add, never report a false negative for an earlier one.
+ */
+final class BloomFilter {
+
+	private final AtomicLongArray words;
+	private final long bitMask;
+	private final int hashCount;
+
+	private BloomFilter(int bitCount, int hashCount) {
+		this.words = new AtomicLongArray(bitCount >>> 6);
+		this.bitMask = bitCount - 1;
+		this.hashCount = hashCount;
+	}
+
+	/**
+	 * Sizes the filter for {@code expectedEntries} at the given false-positive
+	 * rate. The bit count is rounded up to a power of two so positions can be
+	 * masked instead of reduced modulo.
+	 */
+	static BloomFilter create(int expectedEntries, double falsePositiveRate) {
+		int entries = Math.max(expectedEntries, 1);
+		double optimalBits = -entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+		int bitCount = (int) Math.min(1L << 30, Math.max(64L, Long.highestOneBit((long) optimalBits - 1) << 1));
+		int hashCount = Math.max(1, (int) Math.round(optimalBits / entries * Math.log(2)));
+		return new BloomFilter(bitCount, hashCount);
+	}
+
+	/**
+	 * Adds the value. Returns false if all of its bits were already set, so
+	 * repeated adds of the same value are not counted as new entries.
+	 */
+	boolean add(String value) {
+		long hash = hash(value);
+		long h1 = hash;
+		long h2 = (hash >>> 32) | 1;
+		boolean changed = false;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = (h1 + i * h2) & bitMask;
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long current;
+			while (((current = words.get(word)) & mask) == 0) {
+				if (words.compareAndSet(word, current, current | mask)) {
+					changed = true;
+					break;
+				}
+				// retry until the bit is set, by us or a concurrent add
+			}
+		}
+		return changed;
+	}
+
+	boolean mightContain(String value) {
+		long hash = hash(value);
+		long h1 = hash;
+		long h2 = (hash >>> 32) | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = (h1 + i * h2) & bitMask;
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 64-bit FNV-1a over the UTF-16 code units, finished with the MurmurHash3
+	 * mixer so both halves are usable as independent hashes. Works on the
+	 * string in place, so a lookup allocates nothing.
+	 */
+	private static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
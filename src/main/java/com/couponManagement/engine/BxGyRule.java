@@ -0,0 +1,95 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.constants.CouponType;
+import com.couponManagement.entity.BxGyCoupon;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Buy/get lists are flattened into parallel primitive arrays; index {@code i}
+ * of {@code buyProductIds} pairs with index {@code i} of {@code buyQuantities}.
+ */
+public final class BxGyRule extends CouponRule {
+
+	private final long[] buyProductIds;
+	private final int[] buyQuantities;
+	private final long[] getProductIds;
+	private final int[] getQuantities;
+	private final int repetitionLimit;
+	private final int distinctBuyCount;
+
+	public BxGyRule(long id, String couponCode, long[] buyProductIds, int[] buyQuantities, long[] getProductIds,
+			int[] getQuantities, int repetitionLimit) {
+		super(id, couponCode);
+		this.buyProductIds = buyProductIds;
+		this.buyQuantities = buyQuantities;
+		this.getProductIds = getProductIds;
+		this.getQuantities = getQuantities;
+		this.repetitionLimit = repetitionLimit;
+		this.distinctBuyCount = (int) Arrays.stream(buyProductIds).distinct().count();
+	}
+
+	static BxGyRule compile(long id, String couponCode, BxGyCoupon bxGy) {
+		List<BxGyCoupon.ProductQuantity> buyProducts = bxGy.getBuyProducts();
+		List<BxGyCoupon.ProductQuantity> getProducts = bxGy.getGetProducts();
+
+		long[] buyProductIds = new long[buyProducts.size()];
+		int[] buyQuantities = new int[buyProducts.size()];
+		for (int i = 0; i < buyProducts.size(); i++) {
+			buyProductIds[i] = buyProducts.get(i).getProductId();
+			buyQuantities[i] = buyProducts.get(i).getQuantity();
+		}
+
+		long[] getProductIds = new long[getProducts.size()];
+		int[] getQuantities = new int[getProducts.size()];
+		for (int i = 0; i < getProducts.size(); i++) {
+			getProductIds[i] = getProducts.get(i).getProductId();
+			getQuantities[i] = getProducts.get(i).getQuantity();
+		}
+
+		return new BxGyRule(id, couponCode, buyProductIds, buyQuantities, getProductIds, getQuantities,
+				bxGy.getRepetitionLimit());
+	}
+
+	@Override
+	public CouponType getCouponType() {
+		return CouponType.BXGY;
+	}
+
+	public int getBuyCount() {
+		return buyProductIds.length;
+	}
+
+	/**
+	 * Number of different products in the buy list; a product listed twice
+	 * still only needs to be present in the cart once.
+	 */
+	public int getDistinctBuyCount() {
+		return distinctBuyCount;
+	}
+
+	public long getBuyProductId(int index) {
+		return buyProductIds[index];
+	}
+
+	public int getBuyQuantity(int index) {
+		return buyQuantities[index];
+	}
+
+	public int getGetCount() {
+		return getProductIds.length;
+	}
+
+	public long getGetProductId(int index) {
+		return getProductIds[index];
+	}
+
+	public int getGetQuantity(int index) {
+		return getQuantities[index];
+	}
+
+	public int getRepetitionLimit() {
+		return repetitionLimit;
+	}
+}
@@ -0,0 +1,67 @@
+package com.couponManagement.engine;
+
+import java.util.Arrays;
+
+/**
+ * Canonical key for the coupons a cart qualifies for. Two carts get equal
+ * fingerprints when they merge to the same products, quantities and amounts,
+ * whatever the order or split of their lines, and only against the same
+ * catalog and price versions.
+ * <p>
+ * Equality compares the full canonical form, so a hash collision can never
+ * return another cart's result.
+ */
+public final class CartFingerprint {
+
+	// Fixed header: catalog version, price version, limit, cart total
+	private static final int HEADER = 4;
+
+	private final long[] canonical;
+	private final int hash;
+
+	private CartFingerprint(long[] canonical) {
+		this.canonical = canonical;
+		this.hash = Arrays.hashCode(canonical);
+	}
+
+	/**
+	 * @param limit number of best coupons requested, or 0 for all of them
+	 */
+	public static CartFingerprint of(CartView cart, long catalogVersion, long priceVersion, int limit) {
+		int productCount = cart.productCount();
+		long[] productIds = new long[productCount];
+		for (int i = 0; i < productCount; i++) {
+			productIds[i] = cart.productId(i);
+		}
+		Arrays.sort(productIds);
+
+		long[] canonical = new long[HEADER + productCount * 3];
+		canonical[0] = catalogVersion;
+		canonical[1] = priceVersion;
+		canonical[2] = limit;
+		canonical[3] = cart.totalPaise();
+		for (int i = 0, offset = HEADER; i < productCount; i++, offset += 3) {
+			canonical[offset] = productIds[i];
+			canonical[offset + 1] = cart.quantity(productIds[i]);
+			canonical[offset + 2] = cart.amount(productIds[i]);
+		}
+		return new CartFingerprint(canonical);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof CartFingerprint)) {
+			return false;
+		}
+		CartFingerprint other = (CartFingerprint) o;
+		return hash == other.hash && Arrays.equals(canonical, other.canonical);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
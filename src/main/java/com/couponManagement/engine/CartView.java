@@ -0,0 +1,125 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.dto.CartItemDto;
+
+import java.util.List;
+
+/**
+ * Read-only view of a cart keyed by primitive product id, built once per
+ * request and shared by every rule evaluator. Product ids are parsed once,
+ * and lines for the same product are merged: quantities and line amounts are
+ * summed.
+ *
+ * <p>Lookups use an open-addressing table with linear probing. Catalog product
+ * ids are positive, so 0 marks an empty slot; a line whose id is not a
+ * positive integer cannot match any coupon and only counts toward the total.
+ */
+public final class CartView {
+
+	public static final long UNKNOWN_PRODUCT = -1L;
+
+	private final long[] keys;
+	private final int[] quantities;
+	private final long[] amounts;
+	private final int mask;
+
+	// Distinct catalog product ids in first-seen order
+	private final long[] productIds;
+	private int productCount;
+	private long totalPaise;
+
+	private CartView(int lineCount) {
+		int capacity = Integer.highestOneBit(Math.max(lineCount, 1) * 2 - 1) << 1;
+		this.keys = new long[capacity];
+		this.quantities = new int[capacity];
+		this.amounts = new long[capacity];
+		this.mask = capacity - 1;
+		this.productIds = new long[lineCount];
+	}
+
+	public static CartView of(List<CartItemDto> items) {
+		CartView view = new CartView(items.size());
+		for (CartItemDto item : items) {
+			view.add(parseProductId(item.getProductId()), item.getQuantity(),
+					Money.times(Money.toPaise(item.getPrice()), item.getQuantity()));
+		}
+		return view;
+	}
+
+	/**
+	 * Parses a cart product id, returning {@link #UNKNOWN_PRODUCT} unless it is a
+	 * positive decimal integer that fits a long.
+	 */
+	public static long parseProductId(String productId) {
+		if (productId == null || productId.isEmpty() || productId.length() > 19) {
+			return UNKNOWN_PRODUCT;
+		}
+		long value = 0;
+		for (int i = 0; i < productId.length(); i++) {
+			char c = productId.charAt(i);
+			if (c < '0' || c > '9') {
+				return UNKNOWN_PRODUCT;
+			}
+			value = value * 10 + (c - '0');
+			if (value < 0) {
+				return UNKNOWN_PRODUCT;
+			}
+		}
+		return value > 0 ? value : UNKNOWN_PRODUCT;
+	}
+
+	private void add(long productId, int quantity, long amountPaise) {
+		totalPaise = Math.addExact(totalPaise, amountPaise);
+		if (productId <= 0) {
+			return;
+		}
+		int slot = slotOf(productId);
+		if (keys[slot] == 0) {
+			keys[slot] = productId;
+			productIds[productCount++] = productId;
+		}
+		quantities[slot] = Math.addExact(quantities[slot], quantity);
+		amounts[slot] = Math.addExact(amounts[slot], amountPaise);
+	}
+
+	private int slotOf(long productId) {
+		int slot = Long.hashCode(productId * 0x9E3779B97F4A7C15L) & mask;
+		while (keys[slot] != 0 && keys[slot] != productId) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Total quantity of the product in the cart, or 0 if it is not in the cart.
+	 */
+	public int quantity(long productId) {
+		if (productId <= 0) {
+			return 0;
+		}
+		return quantities[slotOf(productId)];
+	}
+
+	/**
+	 * Total value in paise of the cart lines for the product, or 0 if it is not
+	 * in the cart.
+	 */
+	public long amount(long productId) {
+		if (productId <= 0) {
+			return 0;
+		}
+		return amounts[slotOf(productId)];
+	}
+
+	public int productCount() {
+		return productCount;
+	}
+
+	public long productId(int index) {
+		return productIds[index];
+	}
+
+	public long totalPaise() {
+		return totalPaise;
+	}
+}
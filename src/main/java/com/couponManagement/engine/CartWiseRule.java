@@ -0,0 +1,28 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.constants.CouponType;
+
+public final class CartWiseRule extends CouponRule {
+
+	private final long thresholdPaise;
+	private final int discountBasisPoints;
+
+	public CartWiseRule(long id, String couponCode, long thresholdPaise, int discountBasisPoints) {
+		super(id, couponCode);
+		this.thresholdPaise = thresholdPaise;
+		this.discountBasisPoints = discountBasisPoints;
+	}
+
+	@Override
+	public CouponType getCouponType() {
+		return CouponType.CART_WISE;
+	}
+
+	public long getThresholdPaise() {
+		return thresholdPaise;
+	}
+
+	public int getDiscountBasisPoints() {
+		return discountBasisPoints;
+	}
+}
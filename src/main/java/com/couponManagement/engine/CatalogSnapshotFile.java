@@ -0,0 +1,166 @@
+package com.couponManagement.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary file holding a compiled catalog, so a restarting node can serve from
+ * it before the database has been read.
+ * <p>
+ * Layout, big-endian: a 32-byte header of magic, format version, the
+ * {@link CouponChangeLog} version the rules reflect, rule count, payload
+ * length and the payload's CRC32, followed by the payload with, per rule, the
+ * id, the code's UTF-8 length and bytes, and the {@link RuleCodec} encoding's
+ * length and bytes. Files are written to a temporary sibling and moved into
+ * place, so a reader sees either the previous file or the next one.
+ */
+public final class CatalogSnapshotFile {
+
+	public static final int FORMAT_VERSION = 1;
+
+	private static final int MAGIC = 0x43504E43; // "CPNC"
+	private static final int HEADER_LENGTH = 32;
+	// Smallest possible rule entry, which bounds the count a corrupt header can claim
+	private static final int MIN_RULE_LENGTH = 8 + 4 + 4;
+
+	private final List<CouponRule> rules;
+	private final long changeVersion;
+
+	private CatalogSnapshotFile(List<CouponRule> rules, long changeVersion) {
+		this.rules = rules;
+		this.changeVersion = changeVersion;
+	}
+
+	public List<CouponRule> getRules() {
+		return rules;
+	}
+
+	public long getChangeVersion() {
+		return changeVersion;
+	}
+
+	/**
+	 * Writes the snapshot's rules and change version to {@code path}, replacing
+	 * any previous file.
+	 */
+	public static void write(Path path, CouponCatalogSnapshot snapshot) throws IOException {
+		Path absolute = path.toAbsolutePath();
+		Files.createDirectories(absolute.getParent());
+		Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				// The payload is streamed after room for the header, which
+				// needs its length and checksum
+				channel.position(HEADER_LENGTH);
+				CRC32 crc = new CRC32();
+				DataOutputStream payload = new DataOutputStream(new BufferedOutputStream(
+						new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+				for (CouponRule rule : snapshot.getRules()) {
+					byte[] code = rule.getCouponCode() != null ? rule.getCouponCode().getBytes(StandardCharsets.UTF_8)
+							: new byte[0];
+					byte[] encoding = RuleCodec.encode(rule);
+					payload.writeLong(rule.getId());
+					payload.writeInt(code.length);
+					payload.write(code);
+					payload.writeInt(encoding.length);
+					payload.write(encoding);
+				}
+				payload.flush();
+				long payloadLength = channel.position() - HEADER_LENGTH;
+
+				ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+				header.putInt(MAGIC);
+				header.putInt(FORMAT_VERSION);
+				header.putLong(snapshot.getChangeVersion());
+				header.putInt(snapshot.size());
+				header.putLong(payloadLength);
+				header.putInt((int) crc.getValue());
+				header.flip();
+				while (header.hasRemaining()) {
+					channel.write(header, header.position());
+				}
+				channel.force(true);
+			}
+			try {
+				Files.move(temporary, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Memory-maps and decodes the file at {@code path}. Returns null if there
+	 * is no file, or if it is truncated, fails its checksum or has another
+	 * format version; the caller then loads from the database as usual.
+	 */
+	public static CatalogSnapshotFile read(Path path) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// A single mapping is limited to 2 GB
+			if (channel.size() < HEADER_LENGTH || channel.size() > Integer.MAX_VALUE) {
+				return null;
+			}
+			// The mapping stays valid after the channel is closed
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+		if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+			return null;
+		}
+		long changeVersion = buffer.getLong();
+		int ruleCount = buffer.getInt();
+		long payloadLength = buffer.getLong();
+		int checksum = buffer.getInt();
+		if (changeVersion < 0 || ruleCount < 0 || payloadLength != buffer.remaining()
+				|| (long) ruleCount * MIN_RULE_LENGTH > payloadLength) {
+			return null;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(buffer.duplicate());
+		if ((int) crc.getValue() != checksum) {
+			return null;
+		}
+
+		try {
+			List<CouponRule> rules = new ArrayList<>(ruleCount);
+			for (int i = 0; i < ruleCount; i++) {
+				long id = buffer.getLong();
+				byte[] code = new byte[buffer.getInt()];
+				buffer.get(code);
+				byte[] encoding = new byte[buffer.getInt()];
+				buffer.get(encoding);
+				CouponRule rule = RuleCodec.decode(id, new String(code, StandardCharsets.UTF_8), encoding);
+				if (rule == null) {
+					return null;
+				}
+				rules.add(rule);
+			}
+			return buffer.hasRemaining() ? null
+					: new CatalogSnapshotFile(Collections.unmodifiableList(rules), changeVersion);
+		} catch (BufferUnderflowException | NegativeArraySizeException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package com.couponManagement.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link CouponCatalog} in a {@link CatalogSnapshotFile} at
+ * {@code coupon.catalog.snapshot-file} so restarts can skip the full load.
+ * <p>
+ * On startup the file, if present and intact, becomes the first snapshot, and
+ * once the application is ready the change-log entries newer than it are
+ * applied in the background. From then on the file is rewritten every
+ * {@code coupon.catalog.snapshot-interval-ms} (0 to disable) when the catalog
+ * has changed, and once more on shutdown. Without a file path nothing is read
+ * or written.
+ */
+@Component
+public class CatalogSnapshotStore {
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotStore.class);
+
+	private final CouponCatalog couponCatalog;
+	private final CouponChangeLog couponChangeLog;
+	private final Path path;
+	private final long writeIntervalMillis;
+	private ScheduledExecutorService executor;
+	// Only touched by the executor thread, and by shutdown after it has stopped
+	private CouponCatalogSnapshot lastWritten;
+
+	@Autowired
+	public CatalogSnapshotStore(CouponCatalog couponCatalog, CouponChangeLog couponChangeLog,
+			@Value("${coupon.catalog.snapshot-file:}") String snapshotFile,
+			@Value("${coupon.catalog.snapshot-interval-ms:60000}") long writeIntervalMillis) {
+		this.couponCatalog = couponCatalog;
+		this.couponChangeLog = couponChangeLog;
+		this.path = StringUtils.hasText(snapshotFile) ? Paths.get(snapshotFile.trim()) : null;
+		this.writeIntervalMillis = writeIntervalMillis;
+	}
+
+	@PostConstruct
+	public void restore() {
+		if (path == null) {
+			return;
+		}
+		long start = System.nanoTime();
+		CatalogSnapshotFile file;
+		try {
+			file = CatalogSnapshotFile.read(path);
+		} catch (IOException | RuntimeException e) {
+			log.warn("Could not read coupon catalog snapshot {}", path, e);
+			return;
+		}
+		if (file == null) {
+			log.info("No usable coupon catalog snapshot at {}; loading from the database", path);
+			return;
+		}
+		if (couponCatalog.install(file.getRules(), file.getChangeVersion())) {
+			lastWritten = couponCatalog.currentSnapshot();
+			log.info("Restored {} coupon rules at change version {} from {} in {} ms", file.getRules().size(),
+					file.getChangeVersion(), path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (path == null) {
+			return;
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "coupon-catalog-snapshot");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.execute(this::reconcile);
+		if (writeIntervalMillis > 0) {
+			executor.scheduleWithFixedDelay(this::writeIfChanged, writeIntervalMillis, writeIntervalMillis,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		if (executor == null) {
+			return;
+		}
+		executor.shutdownNow();
+		if (executor.awaitTermination(10, TimeUnit.SECONDS)) {
+			writeIfChanged();
+		}
+	}
+
+	/**
+	 * Brings a restored snapshot up to date with the database. Does nothing if
+	 * the catalog was loaded from the database in the first place.
+	 */
+	void reconcile() {
+		CouponCatalogSnapshot snapshot = couponCatalog.currentSnapshot();
+		if (snapshot == null) {
+			return;
+		}
+		try {
+			// A file ahead of the log was written against another database
+			if (couponChangeLog.latestVersion() < snapshot.getChangeVersion()) {
+				couponCatalog.refresh();
+			} else {
+				couponCatalog.refreshChanges();
+			}
+		} catch (RuntimeException e) {
+			// The change poller retries from the same version
+			log.warn("Failed to reconcile the restored coupon catalog", e);
+		}
+	}
+
+	/**
+	 * Writes the current snapshot unless it is the one last written or read.
+	 */
+	void writeIfChanged() {
+		CouponCatalogSnapshot snapshot = couponCatalog.currentSnapshot();
+		if (snapshot == null || snapshot == lastWritten) {
+			return;
+		}
+		try {
+			CatalogSnapshotFile.write(path, snapshot);
+			lastWritten = snapshot;
+		} catch (IOException | RuntimeException e) {
+			// Retried at the next interval
+			log.warn("Failed to write coupon catalog snapshot {}", path, e);
+		}
+	}
+}
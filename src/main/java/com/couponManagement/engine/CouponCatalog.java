@@ -0,0 +1,323 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.entity.Coupon;
+import com.couponManagement.entity.CouponChange;
+import com.couponManagement.repository.CouponRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link CouponCatalogSnapshot} and rebuilds it from the
+ * database when coupons change. Readers never block: they always see either the
+ * previous or the next snapshot in full.
+ * <p>
+ * In the default {@code compact} load mode rules are decoded from each row's
+ * {@link RuleCodec} encoding, so a refresh reads only the {@code coupons}
+ * table; rows without a usable encoding are compiled from their entities. The
+ * {@code joined} mode always compiles from the entities and their detail
+ * tables.
+ * <p>
+ * After the first full load the catalog follows the {@link CouponChangeLog}:
+ * local writes and a periodic poll ({@code coupon.catalog.change-poll-interval-ms},
+ * 0 to disable) apply only the entries newer than the snapshot, so changes made
+ * on other nodes arrive without a full reload. Codes seen in the log are passed
+ * to the {@link CouponCodeFilter}, so it knows codes issued by other nodes
+ * too. The first snapshot may also
+ * come from a {@link CatalogSnapshotStore} file, and is then caught up the
+ * same way.
+ */
+@Component
+public class CouponCatalog {
+
+	public static final String LOAD_MODE_COMPACT = "compact";
+	public static final String LOAD_MODE_JOINED = "joined";
+
+	private static final Logger log = LoggerFactory.getLogger(CouponCatalog.class);
+
+	// Bounds the IN list when compiling unencoded rows from their entities
+	private static final int FALLBACK_CHUNK_SIZE = 500;
+
+	// Also read by the code generator, which needs a node id whenever this polls
+	public static final long DEFAULT_CHANGE_POLL_INTERVAL_MILLIS = 1000;
+
+	// Change-log entries read per query while catching up
+	private static final int CHANGE_BATCH_SIZE = 1000;
+
+	private final CouponRepository couponRepository;
+	private final CouponChangeLog couponChangeLog;
+	private final CouponCodeFilter couponCodeFilter;
+	private final TransactionTemplate readTemplate;
+	private final boolean compactLoad;
+	private final long changePollIntervalMillis;
+	private final AtomicReference<CouponCatalogSnapshot> current = new AtomicReference<>();
+	private final Object refreshLock = new Object();
+	// Guarded by refreshLock
+	private long version;
+	private ScheduledExecutorService poller;
+
+	@Autowired
+	public CouponCatalog(CouponRepository couponRepository, CouponChangeLog couponChangeLog,
+			CouponCodeFilter couponCodeFilter, PlatformTransactionManager transactionManager,
+			@Value("${coupon.catalog.load-mode:" + LOAD_MODE_COMPACT + "}") String loadMode,
+			@Value("${coupon.catalog.change-poll-interval-ms:" + DEFAULT_CHANGE_POLL_INTERVAL_MILLIS + "}") long changePollIntervalMillis) {
+		switch (loadMode.toLowerCase(Locale.ROOT)) {
+		case LOAD_MODE_COMPACT:
+			this.compactLoad = true;
+			break;
+		case LOAD_MODE_JOINED:
+			this.compactLoad = false;
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown coupon.catalog.load-mode: " + loadMode);
+		}
+		this.couponRepository = couponRepository;
+		this.couponChangeLog = couponChangeLog;
+		this.couponCodeFilter = couponCodeFilter;
+		this.changePollIntervalMillis = changePollIntervalMillis;
+		this.readTemplate = new TransactionTemplate(transactionManager);
+		this.readTemplate.setReadOnly(true);
+		// Refreshes may run from afterCommit callbacks, where the finished
+		// transaction is still bound to the thread.
+		this.readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void startPolling() {
+		if (changePollIntervalMillis <= 0) {
+			return;
+		}
+		poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "coupon-catalog-poller");
+			thread.setDaemon(true);
+			return thread;
+		});
+		poller.scheduleWithFixedDelay(this::pollChanges, changePollIntervalMillis, changePollIntervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stopPolling() {
+		if (poller != null) {
+			poller.shutdownNow();
+		}
+	}
+
+	public CouponCatalogSnapshot snapshot() {
+		CouponCatalogSnapshot snapshot = current.get();
+		return snapshot != null ? snapshot : refresh();
+	}
+
+	/**
+	 * Reloads all active coupons and publishes a new snapshot. Refreshes are
+	 * serialized so a slow load can never overwrite a newer one.
+	 */
+	public CouponCatalogSnapshot refresh() {
+		synchronized (refreshLock) {
+			long nextVersion = version + 1;
+			CouponCatalogSnapshot snapshot = readTemplate.execute(status -> {
+				// Read before the coupons: a change committed in between is
+				// applied again by the next catch-up, which is harmless
+				long changeVersion = couponChangeLog.latestVersion();
+				return load(nextVersion, changeVersion);
+			});
+			version = nextVersion;
+			current.set(snapshot);
+			return snapshot;
+		}
+	}
+
+	/**
+	 * Publishes rules restored from a {@link CatalogSnapshotFile}, unless a
+	 * snapshot has already been loaded. Entries newer than
+	 * {@code changeVersion} are applied by the next catch-up.
+	 */
+	boolean install(List<CouponRule> rules, long changeVersion) {
+		synchronized (refreshLock) {
+			if (current.get() != null) {
+				return false;
+			}
+			version++;
+			current.set(new CouponCatalogSnapshot(rules, version, changeVersion));
+			return true;
+		}
+	}
+
+	// The current snapshot without loading one, or null before the first load
+	CouponCatalogSnapshot currentSnapshot() {
+		return current.get();
+	}
+
+	/**
+	 * Applies the change-log entries newer than the current snapshot, reading
+	 * only those entries. Publishes a new snapshot only if there were any, and
+	 * falls back to a full reload when there is no snapshot yet or entries
+	 * have already been pruned; the code filter, which missed those entries
+	 * too, is then rebuilt as well.
+	 */
+	public CouponCatalogSnapshot refreshChanges() {
+		CouponCatalogSnapshot next;
+		boolean missedChanges = false;
+		synchronized (refreshLock) {
+			CouponCatalogSnapshot snapshot = current.get();
+			long nextVersion = version + 1;
+			next = snapshot != null ? readTemplate.execute(status -> applyChanges(snapshot, nextVersion)) : null;
+			if (next == null) {
+				next = refresh();
+				missedChanges = true;
+			} else if (next != snapshot) {
+				version = nextVersion;
+				current.set(next);
+			}
+		}
+		// Outside the lock: a rebuild reads every code
+		if (missedChanges) {
+			couponCodeFilter.rebuild();
+		} else {
+			couponCodeFilter.rebuildIfSaturated();
+		}
+		return next;
+	}
+
+	/**
+	 * Schedules a refresh once the surrounding transaction commits, so the new
+	 * snapshot only ever reflects committed coupons. Without an active
+	 * transaction the refresh happens immediately.
+	 */
+	public void refreshAfterCommit() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			refresh();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				refreshChanges();
+			}
+		});
+	}
+
+	private void pollChanges() {
+		if (current.get() == null) {
+			return;
+		}
+		try {
+			refreshChanges();
+		} catch (RuntimeException e) {
+			// Keep polling; the next run catches up from the same version
+			log.warn("Failed to apply coupon changes", e);
+		}
+	}
+
+	// Returns the same snapshot when nothing changed, and null when the log no
+	// longer reaches back to the snapshot's change version.
+	private CouponCatalogSnapshot applyChanges(CouponCatalogSnapshot snapshot, long nextVersion) {
+		// Latest state per coupon id; null once it is no longer active
+		Map<Long, CouponRule> changed = new HashMap<>();
+		long appliedVersion = snapshot.getChangeVersion();
+		List<CouponChange> changes;
+		do {
+			changes = couponChangeLog.changesAfter(appliedVersion, CHANGE_BATCH_SIZE);
+			for (CouponChange change : changes) {
+				if (change.getVersion() != appliedVersion + 1) {
+					return null;
+				}
+				couponCodeFilter.codeIssued(change.getCouponCode());
+				changed.put(change.getCouponId(), compileChange(change));
+				appliedVersion = change.getVersion();
+			}
+		} while (changes.size() == CHANGE_BATCH_SIZE);
+
+		if (changed.isEmpty()) {
+			return snapshot;
+		}
+		List<CouponRule> rules = new ArrayList<>(snapshot.size() + changed.size());
+		for (CouponRule rule : snapshot.getRules()) {
+			if (!changed.containsKey(rule.getId())) {
+				rules.add(rule);
+			}
+		}
+		for (CouponRule rule : changed.values()) {
+			if (rule != null) {
+				rules.add(rule);
+			}
+		}
+		return new CouponCatalogSnapshot(rules, nextVersion, appliedVersion);
+	}
+
+	private CouponCatalogSnapshot load(long version, long changeVersion) {
+		List<CouponRule> rules = compactLoad ? loadCompact() : loadJoined();
+		return new CouponCatalogSnapshot(rules, version, changeVersion);
+	}
+
+	private List<CouponRule> loadCompact() {
+		List<CouponRule> rules = new ArrayList<>();
+		List<Long> unencodedIds = new ArrayList<>();
+		for (Object[] row : couponRepository.findActiveRuleEncodings()) {
+			long id = (Long) row[0];
+			CouponRule rule = RuleCodec.decode(id, (String) row[1], (byte[]) row[2]);
+			if (rule != null) {
+				rules.add(rule);
+			} else {
+				unencodedIds.add(id);
+			}
+		}
+		for (int from = 0; from < unencodedIds.size(); from += FALLBACK_CHUNK_SIZE) {
+			List<Long> chunk = unencodedIds.subList(from, Math.min(from + FALLBACK_CHUNK_SIZE, unencodedIds.size()));
+			for (Coupon coupon : couponRepository.findAllByIdWithDetails(chunk)) {
+				CouponRule rule = CouponRule.compile(coupon);
+				if (rule != null) {
+					rules.add(rule);
+				}
+			}
+		}
+		return rules;
+	}
+
+	private CouponRule compileChange(CouponChange change) {
+		if (!Boolean.TRUE.equals(change.getIsActive())) {
+			return null;
+		}
+		CouponRule rule = RuleCodec.decode(change.getCouponId(), change.getCouponCode(), change.getRuleEncoding());
+		if (rule != null) {
+			return rule;
+		}
+		// Too large to encode; later entries for this coupon override this one,
+		// so reading its current row is as good as reading this version
+		return couponRepository.findByIdWithDetails(change.getCouponId())
+				.filter(coupon -> Boolean.TRUE.equals(coupon.getIsActive()))
+				.map(CouponRule::compile)
+				.orElse(null);
+	}
+
+	private List<CouponRule> loadJoined() {
+		List<CouponRule> rules = new ArrayList<>();
+		for (Coupon coupon : couponRepository.findByIsActiveTrueWithDetails()) {
+			CouponRule rule = CouponRule.compile(coupon);
+			if (rule != null) {
+				rules.add(rule);
+			}
+		}
+		return rules;
+	}
+}
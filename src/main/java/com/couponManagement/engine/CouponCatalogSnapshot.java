@@ -0,0 +1,208 @@
+package com.couponManagement.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable set of compiled rules for every active coupon, ordered by coupon
+ * id. A snapshot is never modified after construction; catalog changes
+ * publish a new one.
+ *
+ * <p>Rules are addressed by ordinal, their position in {@link #getRules()}.
+ * Product-wise and BxGy rules are additionally indexed by the product ids they
+ * need in the cart, and cart-wise rules are kept sorted by threshold, so a cart
+ * only visits rules it can possibly satisfy.
+ */
+public final class CouponCatalogSnapshot {
+
+	public static final CouponCatalogSnapshot EMPTY = new CouponCatalogSnapshot(Collections.emptyList(), 0);
+
+	private static final int[] NO_ORDINALS = new int[0];
+
+	private final List<CouponRule> rules;
+	private final long version;
+	private final long changeVersion;
+	// Coupon ids in ordinal order, for binary search
+	private final long[] ids;
+	private final Map<String, CouponRule> rulesByCode;
+	// Cart-wise rules sorted by threshold: thresholds in paise, and the rule
+	// ordinal at the same position
+	private final long[] cartWiseThresholds;
+	private final int[] cartWiseOrdinals;
+	private final ProductRuleIndex productIndex;
+
+	public CouponCatalogSnapshot(List<CouponRule> rules, long version) {
+		this(rules, version, 0);
+	}
+
+	public CouponCatalogSnapshot(List<CouponRule> rules, long version, long changeVersion) {
+		this.version = version;
+		this.changeVersion = changeVersion;
+		List<CouponRule> sorted = new ArrayList<>(rules);
+		sorted.sort(Comparator.comparingLong(CouponRule::getId));
+		this.rules = Collections.unmodifiableList(sorted);
+		this.ids = new long[sorted.size()];
+		Map<String, CouponRule> byCode = new HashMap<>(sorted.size() * 2);
+		for (int ordinal = 0; ordinal < sorted.size(); ordinal++) {
+			ids[ordinal] = sorted.get(ordinal).getId();
+			byCode.put(sorted.get(ordinal).getCouponCode(), sorted.get(ordinal));
+		}
+		this.rulesByCode = byCode;
+
+		List<Integer> cartWise = new ArrayList<>();
+		Map<Long, List<Integer>> index = new HashMap<>();
+		for (int ordinal = 0; ordinal < sorted.size(); ordinal++) {
+			CouponRule rule = sorted.get(ordinal);
+			switch (rule.getCouponType()) {
+			case CART_WISE:
+				cartWise.add(ordinal);
+				break;
+			case PRODUCT_WISE:
+				index.computeIfAbsent(((ProductWiseRule) rule).getProductId(), id -> new ArrayList<>()).add(ordinal);
+				break;
+			case BXGY:
+				for (Long productId : distinctBuyProductIds((BxGyRule) rule)) {
+					index.computeIfAbsent(productId, id -> new ArrayList<>()).add(ordinal);
+				}
+				break;
+			}
+		}
+
+		cartWise.sort(Comparator.comparingLong(ordinal -> ((CartWiseRule) sorted.get(ordinal)).getThresholdPaise()));
+		this.cartWiseOrdinals = toArray(cartWise);
+		this.cartWiseThresholds = new long[cartWiseOrdinals.length];
+		for (int i = 0; i < cartWiseOrdinals.length; i++) {
+			cartWiseThresholds[i] = ((CartWiseRule) sorted.get(cartWiseOrdinals[i])).getThresholdPaise();
+		}
+		this.productIndex = new ProductRuleIndex(index);
+	}
+
+	/**
+	 * Increases with every refresh, so results computed against one snapshot can
+	 * be told apart from results of a later one.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * The last {@link CouponChangeLog} version these rules reflect.
+	 */
+	public long getChangeVersion() {
+		return changeVersion;
+	}
+
+	public List<CouponRule> getRules() {
+		return rules;
+	}
+
+	public CouponRule getRule(int ordinal) {
+		return rules.get(ordinal);
+	}
+
+	public int size() {
+		return rules.size();
+	}
+
+	/**
+	 * Returns the active coupon's rule, or null if the catalog has no such
+	 * coupon.
+	 */
+	public CouponRule getRuleById(long couponId) {
+		int ordinal = Arrays.binarySearch(ids, couponId);
+		return ordinal >= 0 ? rules.get(ordinal) : null;
+	}
+
+	/**
+	 * Returns the rule of the active coupon with this code, or null if the
+	 * catalog has no such coupon.
+	 */
+	public CouponRule getRuleByCode(String couponCode) {
+		return rulesByCode.get(couponCode);
+	}
+
+	/**
+	 * Number of cart-wise rules whose threshold the given cart total reaches.
+	 * Those rules are exactly the first {@code n} entries of the threshold
+	 * ordering, found with a single binary search.
+	 */
+	public int eligibleCartWiseCount(long cartTotalPaise) {
+		int low = 0;
+		int high = cartWiseThresholds.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (cartWiseThresholds[mid] <= cartTotalPaise) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns, in ascending ordinal (and therefore coupon id) order, the rules
+	 * worth evaluating for the cart: cart-wise rules whose threshold its total
+	 * reaches, product-wise rules on a product in it, and BxGy rules whose buy
+	 * products are all in it.
+	 */
+	public int[] candidateOrdinals(CartView cart) {
+		int eligibleCartWise = eligibleCartWiseCount(cart.totalPaise());
+		int[] hits = Arrays.copyOf(cartWiseOrdinals, eligibleCartWise + 16);
+		int count = eligibleCartWise;
+		for (int i = 0; i < cart.productCount(); i++) {
+			int[] ordinals = productIndex.get(cart.productId(i));
+			if (count + ordinals.length > hits.length) {
+				hits = Arrays.copyOf(hits, Math.max(hits.length * 2, count + ordinals.length));
+			}
+			System.arraycopy(ordinals, 0, hits, count, ordinals.length);
+			count += ordinals.length;
+		}
+		if (count == 0) {
+			return NO_ORDINALS;
+		}
+
+		// Equal ordinals end up adjacent; a BxGy rule is hit once per distinct
+		// buy product present, so a short run means a buy product is missing.
+		Arrays.sort(hits, 0, count);
+		int size = 0;
+		for (int i = 0; i < count;) {
+			int ordinal = hits[i];
+			int run = 1;
+			while (i + run < count && hits[i + run] == ordinal) {
+				run++;
+			}
+			i += run;
+
+			CouponRule rule = rules.get(ordinal);
+			if (rule instanceof BxGyRule && run < ((BxGyRule) rule).getDistinctBuyCount()) {
+				continue;
+			}
+			hits[size++] = ordinal;
+		}
+		return Arrays.copyOf(hits, size);
+	}
+
+	private static Set<Long> distinctBuyProductIds(BxGyRule rule) {
+		Set<Long> productIds = new LinkedHashSet<>();
+		for (int i = 0; i < rule.getBuyCount(); i++) {
+			productIds.add(rule.getBuyProductId(i));
+		}
+		return productIds;
+	}
+
+	private static int[] toArray(List<Integer> values) {
+		int[] array = new int[values.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+		return array;
+	}
+}
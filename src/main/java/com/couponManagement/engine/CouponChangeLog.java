@@ -0,0 +1,125 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.constants.CouponChangeType;
+import com.couponManagement.entity.Coupon;
+import com.couponManagement.entity.CouponChange;
+import com.couponManagement.entity.CouponChangeCounter;
+import com.couponManagement.repository.CouponChangeCounterRepository;
+import com.couponManagement.repository.CouponChangeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Versioned log of coupon changes, so consumers such as the catalogs of other
+ * nodes can catch up from the last version they saw instead of reloading every
+ * coupon.
+ * <p>
+ * Changes are appended in the transaction that makes them. Versions come from
+ * a counter row that stays locked until that transaction ends, so they are
+ * contiguous and become visible in version order: a reader that sees version
+ * {@code n} has seen every version below it. The price is that coupon writes
+ * are serialized. Only the latest {@code coupon.change-log.retained-versions}
+ * entries are kept; a consumer that falls further behind finds a gap and has
+ * to reload in full.
+ */
+@Component
+public class CouponChangeLog {
+
+	// Pruning runs each time the version crosses a multiple of this
+	private static final long PRUNE_INTERVAL = 1024;
+
+	private final CouponChangeRepository changeRepository;
+	private final CouponChangeCounterRepository counterRepository;
+	private final TransactionTemplate initTemplate;
+	private final long retainedVersions;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	public CouponChangeLog(CouponChangeRepository changeRepository, CouponChangeCounterRepository counterRepository,
+			PlatformTransactionManager transactionManager,
+			@Value("${coupon.change-log.retained-versions:100000}") long retainedVersions) {
+		this.changeRepository = changeRepository;
+		this.counterRepository = counterRepository;
+		this.initTemplate = new TransactionTemplate(transactionManager);
+		this.retainedVersions = Math.max(PRUNE_INTERVAL, retainedVersions);
+	}
+
+	@PostConstruct
+	public void createCounter() {
+		try {
+			initTemplate.executeWithoutResult(status -> {
+				if (!counterRepository.existsById(CouponChangeCounter.ID)) {
+					counterRepository.saveAndFlush(new CouponChangeCounter(CouponChangeCounter.ID, 0L));
+				}
+			});
+		} catch (DataIntegrityViolationException e) {
+			// Another node created it first
+		}
+	}
+
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void record(Coupon coupon, CouponChangeType changeType) {
+		record(Collections.singletonList(coupon), changeType);
+	}
+
+	/**
+	 * Appends one entry per coupon, with consecutive versions, to the current
+	 * transaction. The coupons must already have ids.
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void record(List<Coupon> coupons, CouponChangeType changeType) {
+		if (coupons.isEmpty()) {
+			return;
+		}
+		CouponChangeCounter counter = counterRepository.findByIdForUpdate(CouponChangeCounter.ID)
+				.orElseThrow(() -> new IllegalStateException("Coupon change counter is missing"));
+		long firstVersion = counter.getLastVersion() + 1;
+		long lastVersion = counter.getLastVersion() + coupons.size();
+		counter.setLastVersion(lastVersion);
+
+		List<CouponChange> changes = new ArrayList<>(coupons.size());
+		for (int i = 0; i < coupons.size(); i++) {
+			changes.add(new CouponChange(firstVersion + i, coupons.get(i), changeType));
+		}
+		// persist rather than save: with assigned ids, save would first select
+		// each entry to decide between insert and merge
+		for (CouponChange change : changes) {
+			entityManager.persist(change);
+		}
+
+		if ((firstVersion - 1) / PRUNE_INTERVAL != lastVersion / PRUNE_INTERVAL) {
+			changeRepository.deleteUpToVersion(lastVersion - retainedVersions);
+		}
+	}
+
+	/**
+	 * The latest committed version, or 0 before the first change.
+	 */
+	public long latestVersion() {
+		return counterRepository.findById(CouponChangeCounter.ID).map(CouponChangeCounter::getLastVersion)
+				.orElse(0L);
+	}
+
+	/**
+	 * Up to {@code limit} entries newer than {@code version}, oldest first.
+	 */
+	public List<CouponChange> changesAfter(long version, int limit) {
+		return changeRepository.findByVersionGreaterThanOrderByVersionAsc(version, PageRequest.of(0, limit));
+	}
+}
@@ -0,0 +1,187 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.repository.CouponRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects coupon codes that were never issued before they reach the database.
+ * <p>
+ * A Bloom filter over every issued code answers "definitely not issued"
+ * without false negatives. It is built at startup and extended with codes
+ * created on this node and, through the {@link CouponCatalog}'s change-log
+ * catch-up, on other nodes. Once more codes have been added than it was sized
+ * for it is rebuilt at twice the size, so bulk imports cannot quietly push its
+ * false-positive rate towards 1. Codes that
+ * pass the filter but turn out not to exist (false positives, deleted
+ * coupons) are remembered in a small negative cache for a TTL, so repeated
+ * guesses of the same code stay off the database too.
+ * <p>
+ * Until the first build completes every code is let through.
+ */
+@Component
+public class CouponCodeFilter {
+
+	private final CouponRepository couponRepository;
+	private final int expectedCodes;
+	private final double falsePositiveRate;
+	private final long negativeTtlNanos;
+	private final int negativeMaximumSize;
+
+	private final ConcurrentHashMap<String, Long> missingCodes = new ConcurrentHashMap<>();
+	private final Object buildLock = new Object();
+	private final Object rebuildLock = new Object();
+
+	// Null until the first build; replaced as a whole on rebuild
+	private volatile BloomFilter issuedCodes;
+	// Guarded by buildLock; codes issued while a rebuild is loading
+	private List<String> issuedDuringBuild;
+	// Guarded by buildLock; the entries the filter was sized for and holds
+	private long capacity;
+	private long entries;
+
+	@Autowired
+	public CouponCodeFilter(CouponRepository couponRepository,
+			@Value("${coupon.code-filter.expected-codes:100000}") int expectedCodes,
+			@Value("${coupon.code-filter.false-positive-rate:0.01}") double falsePositiveRate,
+			@Value("${coupon.code-filter.negative-ttl-seconds:60}") long negativeTtlSeconds,
+			@Value("${coupon.code-filter.negative-maximum-size:10000}") int negativeMaximumSize) {
+		if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+		}
+		this.couponRepository = couponRepository;
+		this.expectedCodes = expectedCodes;
+		this.falsePositiveRate = falsePositiveRate;
+		this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+		this.negativeMaximumSize = negativeMaximumSize;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		rebuild();
+	}
+
+	/**
+	 * Rebuilds the filter from every code in the database. Codes issued while
+	 * the load runs may be missed by its query, so they are replayed into the
+	 * new filter before it is published.
+	 */
+	public void rebuild() {
+		synchronized (rebuildLock) {
+			synchronized (buildLock) {
+				issuedDuringBuild = new ArrayList<>();
+			}
+			try {
+				List<String> codes = couponRepository.findAllCouponCodes();
+				// Headroom for codes issued until the next rebuild
+				int size = Math.max(expectedCodes, codes.size() * 2);
+				BloomFilter filter = BloomFilter.create(size, falsePositiveRate);
+				long added = 0;
+				for (String code : codes) {
+					if (filter.add(code)) {
+						added++;
+					}
+				}
+				synchronized (buildLock) {
+					for (String code : issuedDuringBuild) {
+						if (filter.add(code)) {
+							added++;
+						}
+					}
+					issuedCodes = filter;
+					capacity = size;
+					entries = added;
+				}
+			} finally {
+				synchronized (buildLock) {
+					issuedDuringBuild = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rebuilds the filter if it holds more codes than it was sized for. Called
+	 * after the catalog catches up, so a bulk import or a burst of codes from
+	 * other nodes is followed by a resize.
+	 */
+	public void rebuildIfSaturated() {
+		boolean saturated;
+		synchronized (buildLock) {
+			saturated = issuedCodes != null && entries > capacity;
+		}
+		if (saturated) {
+			rebuild();
+		}
+	}
+
+	// Entries the current filter was sized for
+	long capacity() {
+		synchronized (buildLock) {
+			return capacity;
+		}
+	}
+
+	/**
+	 * Returns false only if the code was certainly never issued or was recently
+	 * looked up and not found.
+	 */
+	public boolean mightExist(String couponCode) {
+		Long expiresAt = missingCodes.get(couponCode);
+		if (expiresAt != null) {
+			if (System.nanoTime() - expiresAt < 0) {
+				return false;
+			}
+			missingCodes.remove(couponCode, expiresAt);
+		}
+		BloomFilter filter = issuedCodes;
+		return filter == null || filter.mightContain(couponCode);
+	}
+
+	/**
+	 * Records a newly issued code, on this node or, from the change log, on
+	 * another one, and forgets any earlier miss for it. Local codes must be
+	 * recorded before they can be seen by readers, so the filter never reports
+	 * a false negative for them; recording a code again is harmless.
+	 */
+	public void codeIssued(String couponCode) {
+		missingCodes.remove(couponCode);
+		synchronized (buildLock) {
+			if (issuedDuringBuild != null) {
+				issuedDuringBuild.add(couponCode);
+			}
+			if (issuedCodes != null && issuedCodes.add(couponCode)) {
+				entries++;
+			}
+		}
+	}
+
+	/**
+	 * Remembers a code that passed the filter but does not exist.
+	 */
+	public void codeMissing(String couponCode) {
+		if (negativeMaximumSize <= 0) {
+			return;
+		}
+		if (missingCodes.size() >= negativeMaximumSize) {
+			purgeExpired();
+			if (missingCodes.size() >= negativeMaximumSize) {
+				return;
+			}
+		}
+		missingCodes.put(couponCode, System.nanoTime() + negativeTtlNanos);
+	}
+
+	private void purgeExpired() {
+		long now = System.nanoTime();
+		missingCodes.values().removeIf(expiresAt -> now - expiresAt >= 0);
+	}
+}
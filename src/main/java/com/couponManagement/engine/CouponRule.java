@@ -0,0 +1,67 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.constants.CouponType;
+import com.couponManagement.entity.BxGyCoupon;
+import com.couponManagement.entity.CartWiseCoupon;
+import com.couponManagement.entity.Coupon;
+import com.couponManagement.entity.ProductWiseCoupon;
+
+import java.math.RoundingMode;
+
+/**
+ * Immutable, detached view of an active coupon compiled for evaluation. Rules
+ * hold no reference to JPA entities, so they can be shared across request
+ * threads without a persistence context.
+ */
+public abstract class CouponRule {
+
+	private final long id;
+	private final String couponCode;
+
+	protected CouponRule(long id, String couponCode) {
+		this.id = id;
+		this.couponCode = couponCode;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getCouponCode() {
+		return couponCode;
+	}
+
+	public abstract CouponType getCouponType();
+
+	/**
+	 * Compiles a fully loaded coupon entity into its rule, or returns null when
+	 * the coupon has no details for its declared type.
+	 */
+	public static CouponRule compile(Coupon coupon) {
+		return compile(coupon.getId(), coupon.getCouponCode(), coupon);
+	}
+
+	/**
+	 * Compiles the coupon's details under the given identity, which lets a
+	 * coupon be compiled before it has been assigned an id.
+	 */
+	static CouponRule compile(long id, String couponCode, Coupon coupon) {
+		switch (coupon.getCouponType()) {
+		case CART_WISE:
+			CartWiseCoupon cartWise = coupon.getCartWiseDetails();
+			return cartWise == null ? null
+					: new CartWiseRule(id, couponCode, Money.toPaise(cartWise.getThreshold(), RoundingMode.CEILING),
+							Money.toBasisPoints(cartWise.getDiscount()));
+		case PRODUCT_WISE:
+			ProductWiseCoupon productWise = coupon.getProductWiseDetails();
+			return productWise == null ? null
+					: new ProductWiseRule(id, couponCode, productWise.getProductId(),
+							Money.toBasisPoints(productWise.getDiscount()));
+		case BXGY:
+			BxGyCoupon bxGy = coupon.getBxGyDetails();
+			return bxGy == null ? null : BxGyRule.compile(id, couponCode, bxGy);
+		default:
+			return null;
+		}
+	}
+}
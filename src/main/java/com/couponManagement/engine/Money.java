@@ -0,0 +1,60 @@
+package com.couponManagement.engine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic used by the rule engine. Amounts are held as
+ * {@code long} paise (1/100 rupee) and percentages as {@code int} basis points
+ * (1/100 percent), so evaluation needs no {@link BigDecimal} allocation.
+ * Conversions happen only at the DTO and entity boundaries.
+ *
+ * <p>Rounding rules: amounts are rounded half-up to the nearest paisa on the
+ * way in, and a percentage of an amount is rounded half-up to the nearest
+ * paisa. Thresholds are rounded up, so a cart never qualifies for a coupon it
+ * would not qualify for with exact arithmetic.
+ */
+public final class Money {
+
+	private static final long BASIS_POINTS_PER_UNIT = 10_000L;
+
+	private Money() {
+	}
+
+	public static long toPaise(BigDecimal amount) {
+		return toPaise(amount, RoundingMode.HALF_UP);
+	}
+
+	public static long toPaise(BigDecimal amount, RoundingMode roundingMode) {
+		return amount.movePointRight(2).setScale(0, roundingMode).longValueExact();
+	}
+
+	public static BigDecimal toRupees(long paise) {
+		return BigDecimal.valueOf(paise, 2);
+	}
+
+	public static int toBasisPoints(BigDecimal percent) {
+		return percent.movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValueExact();
+	}
+
+	public static BigDecimal toPercent(int basisPoints) {
+		return BigDecimal.valueOf(basisPoints, 2);
+	}
+
+	/**
+	 * Returns {@code basisPoints} of a non-negative amount, rounded half-up to
+	 * the nearest paisa. Throws {@link ArithmeticException} on overflow rather
+	 * than returning a wrong discount.
+	 */
+	public static long percentOf(long paise, int basisPoints) {
+		return (Math.multiplyExact(paise, (long) basisPoints) + BASIS_POINTS_PER_UNIT / 2) / BASIS_POINTS_PER_UNIT;
+	}
+
+	/**
+	 * Returns {@code paise * quantity}, throwing {@link ArithmeticException} on
+	 * overflow.
+	 */
+	public static long times(long paise, int quantity) {
+		return Math.multiplyExact(paise, (long) quantity);
+	}
+}
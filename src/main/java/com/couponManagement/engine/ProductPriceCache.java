@@ -0,0 +1,225 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.entity.Product;
+import com.couponManagement.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent cache of product prices in paise. Lookups for products
+ * that do not exist are cached too, so a cart full of unknown ids does not
+ * reach the database on every request.
+ * <p>
+ * Writers invalidate synchronously through {@link #evictAfterCommit}. Every
+ * eviction bumps a generation counter, and a load only populates the cache if
+ * no eviction happened while it was reading, so a price read before a commit
+ * can never be cached after it.
+ * <p>
+ * Writes on other nodes, or reads from a lagging replica, are not seen by
+ * those evictions, so entries also expire {@code coupon.price-cache.ttl-ms}
+ * (default 5000; 0 keeps them until evicted) after they were loaded. The
+ * {@link #version} moves on once per TTL as well, so results derived from an
+ * expired price are not served past it either.
+ */
+@Component
+public class ProductPriceCache {
+
+	private final ProductRepository productRepository;
+	private final int maximumSize;
+	private final long ttlNanos;
+	private final ConcurrentHashMap<Long, Entry> entries;
+	private final AtomicLong generation = new AtomicLong();
+	// When version() last moved the generation on for the TTL
+	private volatile long versionStartNanos = System.nanoTime();
+	private final Object evictionLock = new Object();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	@Autowired
+	public ProductPriceCache(ProductRepository productRepository,
+			@Value("${coupon.price-cache.maximum-size:10000}") int maximumSize,
+			@Value("${coupon.price-cache.ttl-ms:5000}") long ttlMillis) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("Price cache size must be at least 1");
+		}
+		if (ttlMillis < 0) {
+			throw new IllegalArgumentException("Price cache TTL must not be negative");
+		}
+		this.productRepository = productRepository;
+		this.maximumSize = maximumSize;
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+		this.entries = new ConcurrentHashMap<>(Math.min(maximumSize, 1024));
+	}
+
+	/**
+	 * Returns the prices of the given products, loading every miss with a single
+	 * batched query.
+	 */
+	public ProductPrices prices(Collection<Long> productIds) {
+		if (productIds.isEmpty()) {
+			return ProductPrices.EMPTY;
+		}
+
+		ProductPrices prices = ProductPrices.withCapacity(productIds.size());
+		List<Long> missing = new ArrayList<>();
+		long now = System.nanoTime();
+		for (Long productId : productIds) {
+			if (productId <= 0) {
+				continue; // never a catalog product
+			}
+			Entry entry = entries.get(productId);
+			if (entry != null && ttlNanos > 0 && now - entry.loadedAtNanos > ttlNanos) {
+				entries.remove(productId, entry);
+				entry = null;
+			}
+			if (entry != null) {
+				entry.referenced = true;
+				prices.put(productId, entry.pricePaise);
+				hits.increment();
+			} else {
+				missing.add(productId);
+			}
+		}
+		misses.add(missing.size());
+
+		if (!missing.isEmpty()) {
+			load(missing, prices);
+		}
+		return prices;
+	}
+
+	/**
+	 * Drops the product's entry right away and again once the surrounding
+	 * transaction commits, so neither an uncommitted price nor a load racing
+	 * with the commit survives it. Called for every created, updated or deleted
+	 * product.
+	 */
+	public void evictAfterCommit(long productId) {
+		evict(productId);
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				evict(productId);
+			}
+		});
+	}
+
+	/**
+	 * Changes whenever a cached price may have changed, so anything derived from
+	 * prices can be keyed on it.
+	 */
+	public long version() {
+		if (ttlNanos > 0) {
+			long start = versionStartNanos;
+			if (System.nanoTime() - start > ttlNanos) {
+				// Racing callers may each move it on; any change will do
+				versionStartNanos = System.nanoTime();
+				generation.incrementAndGet();
+			}
+		}
+		return generation.get();
+	}
+
+	public void clear() {
+		generation.incrementAndGet();
+		entries.clear();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	private void load(List<Long> productIds, ProductPrices prices) {
+		long stamp = generation.get();
+		long loadedAtNanos = System.nanoTime();
+		List<Product> products = productRepository.findAllById(productIds);
+
+		for (Product product : products) {
+			prices.put(product.getId(), Money.toPaise(product.getPrice()));
+		}
+		// Only cached if no product was evicted while the query ran
+		for (Long productId : productIds) {
+			if (generation.get() != stamp) {
+				break;
+			}
+			Entry entry = new Entry(prices.price(productId), loadedAtNanos);
+			// An eviction that slipped in between the check and the put has
+			// already bumped the generation; undo the put in that case
+			if (entries.putIfAbsent(productId, entry) == null && generation.get() != stamp) {
+				entries.remove(productId, entry);
+			}
+		}
+		if (entries.size() > maximumSize) {
+			evictUnreferenced();
+		}
+	}
+
+	private void evict(long productId) {
+		generation.incrementAndGet();
+		entries.remove(productId);
+	}
+
+	/**
+	 * Second-chance eviction: entries read since the last sweep lose their
+	 * reference bit and survive, the rest are removed until the cache is back
+	 * under its bound.
+	 */
+	private void evictUnreferenced() {
+		synchronized (evictionLock) {
+			while (entries.size() > maximumSize) {
+				Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+				while (iterator.hasNext() && entries.size() > maximumSize) {
+					Entry entry = iterator.next().getValue();
+					if (entry.referenced) {
+						entry.referenced = false;
+					} else {
+						iterator.remove();
+						evictions.increment();
+					}
+				}
+			}
+		}
+	}
+
+	private static final class Entry {
+
+		private final long pricePaise;
+		private final long loadedAtNanos;
+		private volatile boolean referenced;
+
+		private Entry(long pricePaise, long loadedAtNanos) {
+			this.pricePaise = pricePaise;
+			this.loadedAtNanos = loadedAtNanos;
+		}
+	}
+}
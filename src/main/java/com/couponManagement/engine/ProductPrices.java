@@ -0,0 +1,58 @@
+package com.couponManagement.engine;
+
+/**
+ * Catalog prices, in paise, for the products a request needs. Filled once from
+ * the {@link ProductPriceCache} and read-only afterwards, so rule evaluation
+ * is pure in-memory work.
+ */
+public final class ProductPrices {
+
+	public static final long UNKNOWN_PRICE = -1L;
+
+	public static final ProductPrices EMPTY = new ProductPrices(0);
+
+	private final long[] keys;
+	private final long[] prices;
+	private final int mask;
+
+	private ProductPrices(int size) {
+		int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+		this.keys = new long[capacity];
+		this.prices = new long[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Creates an empty table sized for {@code size} products, to be filled with
+	 * {@link #put} before it is published.
+	 */
+	static ProductPrices withCapacity(int size) {
+		return size == 0 ? EMPTY : new ProductPrices(size);
+	}
+
+	void put(long productId, long pricePaise) {
+		int slot = slotOf(productId);
+		keys[slot] = productId;
+		prices[slot] = pricePaise;
+	}
+
+	/**
+	 * Catalog price of the product in paise, or {@link #UNKNOWN_PRICE} if it was
+	 * not loaded.
+	 */
+	public long price(long productId) {
+		if (productId <= 0) {
+			return UNKNOWN_PRICE;
+		}
+		int slot = slotOf(productId);
+		return keys[slot] == productId ? prices[slot] : UNKNOWN_PRICE;
+	}
+
+	private int slotOf(long productId) {
+		int slot = Long.hashCode(productId * 0x9E3779B97F4A7C15L) & mask;
+		while (keys[slot] != 0 && keys[slot] != productId) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+}
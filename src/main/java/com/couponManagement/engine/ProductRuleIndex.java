@@ -0,0 +1,54 @@
+package com.couponManagement.engine;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable open-addressing map from a positive product id to the ordinals of
+ * the rules that reference it. Lookups neither box the key nor allocate.
+ */
+final class ProductRuleIndex {
+
+	private static final int[] NONE = new int[0];
+
+	private final long[] keys;
+	private final int[][] values;
+	private final int mask;
+
+	ProductRuleIndex(Map<Long, List<Integer>> ordinalsByProduct) {
+		int capacity = Integer.highestOneBit(Math.max(ordinalsByProduct.size(), 1) * 2 - 1) << 1;
+		this.keys = new long[capacity];
+		this.values = new int[capacity][];
+		this.mask = capacity - 1;
+
+		ordinalsByProduct.forEach((productId, ordinals) -> {
+			int[] array = new int[ordinals.size()];
+			for (int i = 0; i < array.length; i++) {
+				array[i] = ordinals.get(i);
+			}
+			int slot = slotOf(productId);
+			keys[slot] = productId;
+			values[slot] = array;
+		});
+	}
+
+	/**
+	 * Returns the rule ordinals for the product, or an empty array. The
+	 * returned array is shared and must not be modified.
+	 */
+	int[] get(long productId) {
+		if (productId <= 0) {
+			return NONE;
+		}
+		int[] ordinals = values[slotOf(productId)];
+		return ordinals != null ? ordinals : NONE;
+	}
+
+	private int slotOf(long productId) {
+		int slot = Long.hashCode(productId * 0x9E3779B97F4A7C15L) & mask;
+		while (keys[slot] != 0 && keys[slot] != productId) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+}
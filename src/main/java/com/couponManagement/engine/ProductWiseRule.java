@@ -0,0 +1,28 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.constants.CouponType;
+
+public final class ProductWiseRule extends CouponRule {
+
+	private final long productId;
+	private final int discountBasisPoints;
+
+	public ProductWiseRule(long id, String couponCode, long productId, int discountBasisPoints) {
+		super(id, couponCode);
+		this.productId = productId;
+		this.discountBasisPoints = discountBasisPoints;
+	}
+
+	@Override
+	public CouponType getCouponType() {
+		return CouponType.PRODUCT_WISE;
+	}
+
+	public long getProductId() {
+		return productId;
+	}
+
+	public int getDiscountBasisPoints() {
+		return discountBasisPoints;
+	}
+}
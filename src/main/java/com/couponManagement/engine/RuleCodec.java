@@ -0,0 +1,168 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.constants.CouponType;
+import com.couponManagement.entity.Coupon;
+
+import java.util.Arrays;
+
+/**
+ * Compact, versioned binary form of a compiled rule, stored on the coupon row
+ * so the catalog can be loaded from the {@code coupons} table alone.
+ * <p>
+ * Layout: a format version byte, the coupon type ordinal, then the rule's
+ * fields as unsigned LEB128 varints, with money already in paise and
+ * percentages in basis points:
+ * <ul>
+ * <li>cart-wise: threshold, discount</li>
+ * <li>product-wise: product id, discount</li>
+ * <li>BxGy: repetition limit, buy count, (product id, quantity) per buy
+ * entry, get count, (product id, quantity) per get entry</li>
+ * </ul>
+ * The id and code are not encoded; they are columns of their own.
+ */
+public final class RuleCodec {
+
+	public static final byte FORMAT_VERSION = 1;
+
+	// Must fit the ruleEncoding column
+	public static final int MAX_LENGTH = 4096;
+
+	private static final CouponType[] TYPES = CouponType.values();
+
+	private RuleCodec() {
+	}
+
+	/**
+	 * Encodes the coupon's current details, or returns null if they are missing
+	 * or too large to store, in which case the coupon is loaded from its detail
+	 * tables instead.
+	 */
+	public static byte[] encode(Coupon coupon) {
+		CouponRule rule = CouponRule.compile(0, null, coupon);
+		if (rule == null) {
+			return null;
+		}
+		byte[] encoding = encode(rule);
+		return encoding.length <= MAX_LENGTH ? encoding : null;
+	}
+
+	/**
+	 * Encodes a compiled rule, however large.
+	 */
+	public static byte[] encode(CouponRule rule) {
+		Writer writer = new Writer();
+		writer.buffer[writer.length++] = FORMAT_VERSION;
+		writer.buffer[writer.length++] = (byte) rule.getCouponType().ordinal();
+		switch (rule.getCouponType()) {
+		case CART_WISE:
+			CartWiseRule cartWise = (CartWiseRule) rule;
+			writer.write(cartWise.getThresholdPaise());
+			writer.write(cartWise.getDiscountBasisPoints());
+			break;
+		case PRODUCT_WISE:
+			ProductWiseRule productWise = (ProductWiseRule) rule;
+			writer.write(productWise.getProductId());
+			writer.write(productWise.getDiscountBasisPoints());
+			break;
+		case BXGY:
+			BxGyRule bxGy = (BxGyRule) rule;
+			writer.write(bxGy.getRepetitionLimit());
+			writer.write(bxGy.getBuyCount());
+			for (int i = 0; i < bxGy.getBuyCount(); i++) {
+				writer.write(bxGy.getBuyProductId(i));
+				writer.write(bxGy.getBuyQuantity(i));
+			}
+			writer.write(bxGy.getGetCount());
+			for (int i = 0; i < bxGy.getGetCount(); i++) {
+				writer.write(bxGy.getGetProductId(i));
+				writer.write(bxGy.getGetQuantity(i));
+			}
+			break;
+		}
+		return Arrays.copyOf(writer.buffer, writer.length);
+	}
+
+	/**
+	 * Decodes a rule, or returns null if the encoding is absent, malformed or
+	 * from an unknown format version.
+	 */
+	public static CouponRule decode(long id, String couponCode, byte[] encoding) {
+		if (encoding == null || encoding.length < 2 || encoding[0] != FORMAT_VERSION || encoding[1] < 0
+				|| encoding[1] >= TYPES.length) {
+			return null;
+		}
+		Reader reader = new Reader(encoding);
+		try {
+			switch (TYPES[encoding[1]]) {
+			case CART_WISE:
+				return new CartWiseRule(id, couponCode, reader.readLong(), reader.readInt());
+			case PRODUCT_WISE:
+				return new ProductWiseRule(id, couponCode, reader.readLong(), reader.readInt());
+			case BXGY:
+				int repetitionLimit = reader.readInt();
+				int buyCount = reader.readInt();
+				long[] buyProductIds = new long[buyCount];
+				int[] buyQuantities = new int[buyCount];
+				for (int i = 0; i < buyCount; i++) {
+					buyProductIds[i] = reader.readLong();
+					buyQuantities[i] = reader.readInt();
+				}
+				int getCount = reader.readInt();
+				long[] getProductIds = new long[getCount];
+				int[] getQuantities = new int[getCount];
+				for (int i = 0; i < getCount; i++) {
+					getProductIds[i] = reader.readLong();
+					getQuantities[i] = reader.readInt();
+				}
+				return new BxGyRule(id, couponCode, buyProductIds, buyQuantities, getProductIds, getQuantities,
+						repetitionLimit);
+			default:
+				return null;
+			}
+		} catch (ArrayIndexOutOfBoundsException | NegativeArraySizeException | ArithmeticException e) {
+			return null;
+		}
+	}
+
+	private static final class Writer {
+
+		private byte[] buffer = new byte[32];
+		private int length;
+
+		private void write(long value) {
+			if (buffer.length - length < 10) {
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+			while ((value & ~0x7FL) != 0) {
+				buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			buffer[length++] = (byte) value;
+		}
+	}
+
+	private static final class Reader {
+
+		private final byte[] buffer;
+		private int position = 2;
+
+		private Reader(byte[] buffer) {
+			this.buffer = buffer;
+		}
+
+		private long readLong() {
+			long value = 0;
+			for (int shift = 0;; shift += 7) {
+				byte b = buffer[position++];
+				value |= (long) (b & 0x7F) << shift;
+				if (b >= 0) {
+					return value;
+				}
+			}
+		}
+
+		private int readInt() {
+			return Math.toIntExact(readLong());
+		}
+	}
+}
@@ -1,5 +1,9 @@
 package com.couponManagement.entity;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
@@ -8,18 +12,28 @@ import java.util.List;
 
 @Entity
 @Table(name = "bxgyCoupons")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class BxGyCoupon extends CouponDetails {
 
+    // Product lists are loaded for up to BATCH_SIZE coupons per query, so listing
+    // BxGy coupons does not cost two extra SELECTs per coupon
+    public static final int BATCH_SIZE = 256;
+
     @NotEmpty
     @ElementCollection
     @CollectionTable(name = "bxgyBuyProducts", joinColumns = @JoinColumn(name = "bxgyCouponId"))
     @OrderColumn(name = "buyOrder")
+    @BatchSize(size = BATCH_SIZE)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<ProductQuantity> buyProducts;
 
     @NotEmpty
     @ElementCollection
     @CollectionTable(name = "bxgyGetProducts", joinColumns = @JoinColumn(name = "bxgyCouponId"))
     @OrderColumn(name = "getOrder")
+    @BatchSize(size = BATCH_SIZE)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<ProductQuantity> getProducts;
 
     @NotNull
@@ -1,16 +1,24 @@
 package com.couponManagement.entity;
 
 import com.couponManagement.constants.CouponType;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 @Entity
 @Table(name = "coupons")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Coupon {
 
+	// Pooled sequence ids keep JDBC insert batching available; IDENTITY would
+	// force one round trip per row
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "couponIdGenerator")
+	@SequenceGenerator(name = "couponIdGenerator", sequenceName = "couponIdSequence", allocationSize = 50)
 	private Long id;
 
 	@Column(name = "couponCode", unique = true, nullable = false)
@@ -32,6 +40,11 @@ public class Coupon {
 	@Column(name = "isActive")
 	private Boolean isActive = true;
 
+	// Versioned compact copy of the details, see RuleCodec; null for rows
+	// written before the column existed
+	@Column(name = "ruleEncoding", length = 4096)
+	private byte[] ruleEncoding;
+
 	@Column(name = "createdAt")
 	private String createdAt;
 
@@ -125,6 +138,14 @@ public class Coupon {
 		this.isActive = isActive;
 	}
 
+	public byte[] getRuleEncoding() {
+		return ruleEncoding;
+	}
+
+	public void setRuleEncoding(byte[] ruleEncoding) {
+		this.ruleEncoding = ruleEncoding;
+	}
+
 	public String getCreatedAt() {
 		return createdAt;
 	}
@@ -0,0 +1,109 @@
+package com.couponManagement.entity;
+
+import com.couponManagement.constants.CouponChangeType;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * One entry of the coupon change log: the state of a coupon right after a
+ * change, written in the same transaction as the change. Versions are
+ * contiguous and visible in commit order, see CouponChangeLog.
+ */
+@Entity
+@Table(name = "couponChanges", indexes = @Index(name = "idx_coupon_change_coupon", columnList = "couponId"))
+public class CouponChange {
+
+	@Id
+	@Column(name = "version")
+	private Long version;
+
+	@Column(name = "couponId", nullable = false)
+	private Long couponId;
+
+	@Column(name = "couponCode", nullable = false)
+	private String couponCode;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "changeType", nullable = false)
+	private CouponChangeType changeType;
+
+	@Column(name = "isActive", nullable = false)
+	private Boolean isActive;
+
+	// Same encoding as Coupon.ruleEncoding
+	@Column(name = "ruleEncoding", length = 4096)
+	private byte[] ruleEncoding;
+
+	@Column(name = "changedAt")
+	private String changedAt;
+
+	public CouponChange() {
+	}
+
+	public CouponChange(Long version, Coupon coupon, CouponChangeType changeType) {
+		this.version = version;
+		this.couponId = coupon.getId();
+		this.couponCode = coupon.getCouponCode();
+		this.changeType = changeType;
+		this.isActive = coupon.getIsActive();
+		this.ruleEncoding = coupon.getRuleEncoding();
+		this.changedAt = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS"));
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public Long getCouponId() {
+		return couponId;
+	}
+
+	public void setCouponId(Long couponId) {
+		this.couponId = couponId;
+	}
+
+	public String getCouponCode() {
+		return couponCode;
+	}
+
+	public void setCouponCode(String couponCode) {
+		this.couponCode = couponCode;
+	}
+
+	public CouponChangeType getChangeType() {
+		return changeType;
+	}
+
+	public void setChangeType(CouponChangeType changeType) {
+		this.changeType = changeType;
+	}
+
+	public Boolean getIsActive() {
+		return isActive;
+	}
+
+	public void setIsActive(Boolean isActive) {
+		this.isActive = isActive;
+	}
+
+	public byte[] getRuleEncoding() {
+		return ruleEncoding;
+	}
+
+	public void setRuleEncoding(byte[] ruleEncoding) {
+		this.ruleEncoding = ruleEncoding;
+	}
+
+	public String getChangedAt() {
+		return changedAt;
+	}
+
+	public void setChangedAt(String changedAt) {
+		this.changedAt = changedAt;
+	}
+}
@@ -0,0 +1,44 @@
+package com.couponManagement.entity;
+
+import javax.persistence.*;
+
+/**
+ * Single row holding the last version handed out to the coupon change log.
+ * Writers lock it until they commit, which orders their versions.
+ */
+@Entity
+@Table(name = "couponChangeCounter")
+public class CouponChangeCounter {
+
+	public static final int ID = 1;
+
+	@Id
+	private Integer id;
+
+	@Column(name = "lastVersion", nullable = false)
+	private Long lastVersion;
+
+	public CouponChangeCounter() {
+	}
+
+	public CouponChangeCounter(Integer id, Long lastVersion) {
+		this.id = id;
+		this.lastVersion = lastVersion;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	public Long getLastVersion() {
+		return lastVersion;
+	}
+
+	public void setLastVersion(Long lastVersion) {
+		this.lastVersion = lastVersion;
+	}
+}
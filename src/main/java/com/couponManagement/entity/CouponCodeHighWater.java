@@ -0,0 +1,43 @@
+package com.couponManagement.entity;
+
+import javax.persistence.*;
+
+/**
+ * One row per code generator node id, holding the first tick that node has
+ * not yet leased. Ticks below it may already have been issued, so a restarted
+ * node, or one whose clock stepped back, resumes from here.
+ */
+@Entity
+@Table(name = "couponCodeHighWater")
+public class CouponCodeHighWater {
+
+	@Id
+	private Integer nodeId;
+
+	@Column(name = "nextTick", nullable = false)
+	private Long nextTick;
+
+	public CouponCodeHighWater() {
+	}
+
+	public CouponCodeHighWater(Integer nodeId, Long nextTick) {
+		this.nodeId = nodeId;
+		this.nextTick = nextTick;
+	}
+
+	public Integer getNodeId() {
+		return nodeId;
+	}
+
+	public void setNodeId(Integer nodeId) {
+		this.nodeId = nodeId;
+	}
+
+	public Long getNextTick() {
+		return nextTick;
+	}
+
+	public void setNextTick(Long nextTick) {
+		this.nextTick = nextTick;
+	}
+}
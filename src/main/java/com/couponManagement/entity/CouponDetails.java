@@ -5,8 +5,10 @@ import javax.persistence.*;
 @MappedSuperclass
 public abstract class CouponDetails {
 
+    // Shared by all detail tables; see Coupon for why this is not IDENTITY
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "couponDetailsIdGenerator")
+    @SequenceGenerator(name = "couponDetailsIdGenerator", sequenceName = "couponDetailsIdSequence", allocationSize = 50)
     private Long id;
 
     @OneToOne
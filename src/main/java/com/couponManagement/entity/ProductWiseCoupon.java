@@ -1,5 +1,8 @@
 package com.couponManagement.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotNull;
@@ -7,6 +10,8 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "productWiseCoupons")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class ProductWiseCoupon extends CouponDetails {
 
     @NotNull
@@ -31,6 +31,12 @@ public class GlobalExceptionHandler {
                 .body(new ResultVO(ApiResponseCode.FAILURE, ex.getMessage()));
     }
 
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ResponseEntity<ResultVO> handlePayloadTooLargeException(PayloadTooLargeException ex) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(new ResultVO(ApiResponseCode.FAILURE, ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ResultVO> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -0,0 +1,19 @@
+package com.couponManagement.repository;
+
+import com.couponManagement.entity.CouponChangeCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface CouponChangeCounterRepository extends JpaRepository<CouponChangeCounter, Integer> {
+
+    // Held until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CouponChangeCounter c WHERE c.id = :id")
+    Optional<CouponChangeCounter> findByIdForUpdate(@Param("id") Integer id);
+}
@@ -0,0 +1,20 @@
+package com.couponManagement.repository;
+
+import com.couponManagement.entity.CouponChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface CouponChangeRepository extends JpaRepository<CouponChange, Long> {
+
+    List<CouponChange> findByVersionGreaterThanOrderByVersionAsc(long version, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM CouponChange c WHERE c.version <= :version")
+    int deleteUpToVersion(@Param("version") long version);
+}
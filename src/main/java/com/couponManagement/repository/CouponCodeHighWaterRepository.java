@@ -0,0 +1,19 @@
+package com.couponManagement.repository;
+
+import com.couponManagement.entity.CouponCodeHighWater;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface CouponCodeHighWaterRepository extends JpaRepository<CouponCodeHighWater, Integer> {
+
+    // Held until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM CouponCodeHighWater h WHERE h.nodeId = :nodeId")
+    Optional<CouponCodeHighWater> findByIdForUpdate(@Param("nodeId") Integer nodeId);
+}
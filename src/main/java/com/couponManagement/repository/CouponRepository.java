@@ -2,16 +2,27 @@ package com.couponManagement.repository;
 
 import com.couponManagement.entity.Coupon;
 import com.couponManagement.constants.*;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface CouponRepository extends JpaRepository<Coupon, Long> {
 
+    // Rows pulled per round trip by the streaming export queries
+    String EXPORT_FETCH_SIZE = "500";
+
     @Query("SELECT c FROM Coupon c LEFT JOIN FETCH c.cartWiseDetails LEFT JOIN FETCH c.productWiseDetails LEFT JOIN FETCH c.bxGyDetails WHERE c.couponCode = :couponCode")
     Optional<Coupon> findByCouponCodeWithDetails(@Param("couponCode") String couponCode);
     
@@ -24,6 +35,29 @@ public interface CouponRepository extends JpaRepository<Coupon, Long> {
     @Query("SELECT c FROM Coupon c LEFT JOIN FETCH c.cartWiseDetails LEFT JOIN FETCH c.productWiseDetails LEFT JOIN FETCH c.bxGyDetails WHERE c.isActive = true")
     List<Coupon> findByIsActiveTrueWithDetails();
     
+    @Query("SELECT c FROM Coupon c LEFT JOIN FETCH c.cartWiseDetails LEFT JOIN FETCH c.productWiseDetails LEFT JOIN FETCH c.bxGyDetails WHERE c.id IN :ids")
+    List<Coupon> findAllByIdWithDetails(@Param("ids") Collection<Long> ids);
+
+    // Single-table scan for the catalog: id, couponCode, ruleEncoding per active coupon
+    @Query("SELECT c.id, c.couponCode, c.ruleEncoding FROM Coupon c WHERE c.isActive = true")
+    List<Object[]> findActiveRuleEncodings();
+
+    // Keyset pages: the next page starts after the last id of the previous one
+    @Query("SELECT c FROM Coupon c LEFT JOIN FETCH c.cartWiseDetails LEFT JOIN FETCH c.productWiseDetails LEFT JOIN FETCH c.bxGyDetails WHERE c.id > :afterId ORDER BY c.id")
+    List<Coupon> findPageWithDetails(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("SELECT c FROM Coupon c LEFT JOIN FETCH c.cartWiseDetails LEFT JOIN FETCH c.productWiseDetails LEFT JOIN FETCH c.bxGyDetails WHERE c.isActive = true AND c.id > :afterId ORDER BY c.id")
+    List<Coupon> findActivePageWithDetails(@Param("afterId") long afterId, Pageable pageable);
+
+    // Forward-only cursors for the export; must be consumed inside a transaction
+    @QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true") })
+    @Query("SELECT c FROM Coupon c LEFT JOIN FETCH c.cartWiseDetails LEFT JOIN FETCH c.productWiseDetails LEFT JOIN FETCH c.bxGyDetails ORDER BY c.id")
+    Stream<Coupon> streamAllWithDetails();
+
+    @QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true") })
+    @Query("SELECT c FROM Coupon c LEFT JOIN FETCH c.cartWiseDetails LEFT JOIN FETCH c.productWiseDetails LEFT JOIN FETCH c.bxGyDetails WHERE c.isActive = true ORDER BY c.id")
+    Stream<Coupon> streamActiveWithDetails();
+
     Optional<Coupon> findByCouponCode(String couponCode);
 
     List<Coupon> findByIsActiveTrue();
@@ -35,6 +69,9 @@ public interface CouponRepository extends JpaRepository<Coupon, Long> {
 
     boolean existsByCouponCode(String couponCode);
 
+    @Query("SELECT c.couponCode FROM Coupon c")
+    List<String> findAllCouponCodes();
+
     @Query("SELECT COUNT(c) FROM Coupon c WHERE c.isActive = true AND c.couponCode = :couponCode")
     long countActiveByCouponCode(@Param("couponCode") String couponCode);
 }
@@ -3,15 +3,21 @@ package com.couponManagement.repository;
 import com.couponManagement.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.math.BigDecimal;
 import java.util.List;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    // Served from the query cache until the products table changes
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Product> findByCategory(String category);
 
     List<Product> findByNameContainingIgnoreCase(String name);
@@ -0,0 +1,8 @@
+package com.couponManagement.service;
+
+import com.couponManagement.dto.CacheStatisticsResponse;
+
+public interface CacheStatisticsService {
+
+	CacheStatisticsResponse getCacheStatistics();
+}
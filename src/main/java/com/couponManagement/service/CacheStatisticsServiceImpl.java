@@ -0,0 +1,45 @@
+package com.couponManagement.service;
+
+import com.couponManagement.dto.CacheStatisticsResponse;
+import com.couponManagement.dto.CacheStatisticsResponse.CacheCounts;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+public class CacheStatisticsServiceImpl implements CacheStatisticsService {
+
+	private final Statistics statistics;
+
+	@Autowired
+	public CacheStatisticsServiceImpl(EntityManagerFactory entityManagerFactory) {
+		this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Override
+	public CacheStatisticsResponse getCacheStatistics() {
+		String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+		Arrays.sort(regionNames);
+		List<CacheCounts> regions = new ArrayList<>(regionNames.length);
+		for (String regionName : regionNames) {
+			CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+			if (region != null) {
+				regions.add(new CacheCounts(regionName, region.getHitCount(), region.getMissCount(),
+						region.getPutCount()));
+			}
+		}
+		return new CacheStatisticsResponse(statistics.isStatisticsEnabled(),
+				new CacheCounts("secondLevel", statistics.getSecondLevelCacheHitCount(),
+						statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount()),
+				new CacheCounts("query", statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+						statistics.getQueryCachePutCount()),
+				regions);
+	}
+}
@@ -0,0 +1,215 @@
+package com.couponManagement.service;
+
+import com.couponManagement.engine.CouponCatalog;
+import com.couponManagement.entity.CouponCodeHighWater;
+import com.couponManagement.repository.CouponCodeHighWaterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free coupon code generator.
+ * <p>
+ * Every code encodes a 63-bit value laid out as milliseconds since 2025-01-01
+ * (41 bits), a sequence within the millisecond (12 bits) and the node id
+ * (10 bits). Time and sequence together form a single tick counter that is
+ * reserved with a CAS and never handed out twice: reservations start at the
+ * current clock, or right after the last reserved tick if the clock has not
+ * moved past it. Large reservations may borrow ticks from the near future.
+ * <p>
+ * Ticks are leased from the node's {@link CouponCodeHighWater} row a minute
+ * ahead at a time, and the lease is committed before any of its ticks is
+ * handed out. A restarted node, or one whose clock stepped back, resumes at
+ * the end of its last lease instead of reissuing codes. A new lease never
+ * reaches below the stored mark, so two processes left on one node id skip
+ * each other's ticks rather than share them. Uniqueness across
+ * nodes relies on each running node having its own {@code coupon.code.node-id};
+ * the id is therefore required while replicas or change-log polling, which
+ * is on by default, are enabled.
+ * <p>
+ * Threads draw codes from a private block of ticks, so single creates hardly
+ * ever touch the shared counter, and bulk issuance reserves a whole range with
+ * one CAS and formats codes lazily.
+ */
+@Component
+public class CouponCodeGenerator {
+
+	public static final int MAX_NODE_ID = 1023;
+
+	private static final String PREFIX = "CPN";
+	private static final long EPOCH_MILLIS = 1735689600000L;
+	private static final int NODE_BITS = 10;
+	private static final int SEQUENCE_BITS = 12;
+	private static final int THREAD_BLOCK_SIZE = 64;
+	private static final long LEASE_TICKS = 60_000L << SEQUENCE_BITS;
+
+	// Crockford's alphabet: no I, L, O or U, so codes are easy to read out
+	private static final char[] BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+	private static final int BASE32_LENGTH = 13;
+
+	private final int nodeId;
+	private final boolean base32;
+	private final CouponCodeHighWaterRepository highWaterRepository;
+	private final TransactionTemplate leaseTemplate;
+
+	// First tick not yet reserved
+	private final AtomicLong nextTick = new AtomicLong();
+	// End of the committed lease; only ever grows
+	private volatile long leaseEnd;
+	private final Object leaseLock = new Object();
+	// Per thread: next tick to use and the end of the thread's block
+	private final ThreadLocal<long[]> threadBlock = ThreadLocal.withInitial(() -> new long[2]);
+
+	/**
+	 * Replicas and change-log polling, which is on by default, exist for nodes
+	 * sharing the database, so with either the node id may not fall back to 0.
+	 */
+	@Autowired
+	public CouponCodeGenerator(@Value("${coupon.code.node-id:-1}") int nodeId,
+			@Value("${coupon.code.base32:false}") boolean base32,
+			@Value("${coupon.datasource.replica.urls:}") String replicaUrls,
+			@Value("${coupon.catalog.change-poll-interval-ms:" + CouponCatalog.DEFAULT_CHANGE_POLL_INTERVAL_MILLIS
+					+ "}") long changePollIntervalMillis,
+			CouponCodeHighWaterRepository highWaterRepository,
+			PlatformTransactionManager transactionManager) {
+		if (nodeId == -1) {
+			if (!replicaUrls.trim().isEmpty() || changePollIntervalMillis > 0) {
+				throw new IllegalStateException("coupon.code.node-id must be set, and unique per node, "
+						+ "when replicas or change-log polling (coupon.catalog.change-poll-interval-ms > 0) are on");
+			}
+			nodeId = 0;
+		}
+		if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+			throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+		}
+		this.nodeId = nodeId;
+		this.base32 = base32;
+		this.highWaterRepository = highWaterRepository;
+		this.leaseTemplate = new TransactionTemplate(transactionManager);
+		// Committed on its own, even when a code is drawn inside a caller's transaction
+		this.leaseTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	@PostConstruct
+	public void loadHighWater() {
+		try {
+			leaseTemplate.executeWithoutResult(status -> {
+				if (!highWaterRepository.existsById(nodeId)) {
+					highWaterRepository.saveAndFlush(new CouponCodeHighWater(nodeId, 0L));
+				}
+			});
+		} catch (DataIntegrityViolationException e) {
+			// Another process with the same node id created it first
+		}
+		long highWater = highWaterRepository.findById(nodeId).map(CouponCodeHighWater::getNextTick).orElse(0L);
+		nextTick.accumulateAndGet(highWater, Math::max);
+		leaseEnd = Math.max(leaseEnd, highWater);
+	}
+
+	public String nextCode() {
+		long[] block = threadBlock.get();
+		if (block[0] == block[1]) {
+			block[0] = reserveTicks(THREAD_BLOCK_SIZE);
+			block[1] = block[0] + THREAD_BLOCK_SIZE;
+		}
+		return format(block[0]++);
+	}
+
+	/**
+	 * Reserves {@code count} consecutive codes at once. The returned list is a
+	 * read-only view that formats each code on access.
+	 */
+	public List<String> reserve(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Count must not be negative");
+		}
+		return new CodeRange(count == 0 ? 0 : reserveTicks(count), count);
+	}
+
+	private long reserveTicks(int count) {
+		long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+		while (true) {
+			long next = nextTick.get();
+			long start = Math.max(next, now);
+			long end = start + count;
+			if (end > leaseEnd) {
+				extendLease(end);
+			} else if (nextTick.compareAndSet(next, end)) {
+				return start;
+			}
+		}
+	}
+
+	private void extendLease(long end) {
+		synchronized (leaseLock) {
+			if (end <= leaseEnd) {
+				return;
+			}
+			long[] lease = leaseTemplate.execute(status -> {
+				CouponCodeHighWater highWater = highWaterRepository.findByIdForUpdate(nodeId)
+						.orElseThrow(() -> new IllegalStateException("Coupon code high-water mark is missing"));
+				long stored = highWater.getNextTick();
+				// Past our own lease end means another process with this node id
+				// leased the ticks in between; the new lease starts after them
+				long newEnd = Math.max(end, stored) + LEASE_TICKS;
+				highWater.setNextTick(newEnd);
+				return new long[] {stored, newEnd};
+			});
+			if (lease[0] > leaseEnd) {
+				// Before the lease end moves, so a reservation that read the old
+				// next tick fails its CAS and starts again past the other lease
+				nextTick.accumulateAndGet(lease[0], Math::max);
+			}
+			leaseEnd = lease[1];
+		}
+	}
+
+	private String format(long tick) {
+		long value = (tick << NODE_BITS) | nodeId;
+		if (!base32) {
+			return PREFIX + value;
+		}
+		// Fixed width, so codes of the same node sort by issue order
+		char[] chars = new char[PREFIX.length() + BASE32_LENGTH];
+		PREFIX.getChars(0, PREFIX.length(), chars, 0);
+		for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+			chars[i] = BASE32[(int) (value & 31)];
+			value >>>= 5;
+		}
+		return new String(chars);
+	}
+
+	private final class CodeRange extends AbstractList<String> implements RandomAccess {
+
+		private final long firstTick;
+		private final int size;
+
+		private CodeRange(long firstTick, int size) {
+			this.firstTick = firstTick;
+			this.size = size;
+		}
+
+		@Override
+		public String get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return format(firstTick + index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
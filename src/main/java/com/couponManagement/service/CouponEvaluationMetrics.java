@@ -0,0 +1,123 @@
+package com.couponManagement.service;
+
+import com.couponManagement.constants.CouponType;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for rule evaluation, one set per coupon type, tagged
+ * {@code type=cart_wise|product_wise|bxgy}:
+ * <ul>
+ * <li>{@code coupon.evaluation}: time spent evaluating one request's
+ * candidates of the type</li>
+ * <li>{@code coupon.evaluation.candidates}: candidates of the type evaluated
+ * per request</li>
+ * <li>{@code coupon.evaluation.applicable}: those of them that applied</li>
+ * </ul>
+ * A {@link Tally} collects a request's evaluations in plain arrays and records
+ * them once at the end, so the evaluation loop does no meter lookups. Timing
+ * costs two clock reads per candidate and can be turned off with
+ * {@code coupon.metrics.evaluation-timers=false}; the counts are kept.
+ * Tallies of warm-up replays ({@link WarmUpContext}) are dropped.
+ */
+@Component
+public class CouponEvaluationMetrics {
+
+	private static final CouponType[] TYPES = CouponType.values();
+
+	private final boolean timed;
+	private final Timer[] timers = new Timer[TYPES.length];
+	private final DistributionSummary[] candidates = new DistributionSummary[TYPES.length];
+	private final DistributionSummary[] applicable = new DistributionSummary[TYPES.length];
+
+	@Autowired
+	public CouponEvaluationMetrics(MeterRegistry meterRegistry,
+			@Value("${coupon.metrics.evaluation-timers:true}") boolean timed) {
+		this.timed = timed;
+		for (CouponType type : TYPES) {
+			String tag = type.name().toLowerCase();
+			timers[type.ordinal()] = Timer.builder("coupon.evaluation")
+					.description("Time spent evaluating one request's candidate coupons of a type")
+					.tag("type", tag)
+					.register(meterRegistry);
+			candidates[type.ordinal()] = summary("coupon.evaluation.candidates",
+					"Candidate coupons of a type evaluated per request", tag, meterRegistry);
+			applicable[type.ordinal()] = summary("coupon.evaluation.applicable",
+					"Coupons of a type found applicable per request", tag, meterRegistry);
+		}
+	}
+
+	private static DistributionSummary summary(String name, String description, String type,
+			MeterRegistry meterRegistry) {
+		return DistributionSummary.builder(name)
+				.description(description)
+				.baseUnit("coupons")
+				.tag("type", type)
+				.minimumExpectedValue(1.0)
+				.maximumExpectedValue(1000000.0)
+				.register(meterRegistry);
+	}
+
+	public Tally tally() {
+		return new Tally();
+	}
+
+	/**
+	 * One request's evaluations. Not thread-safe; each request or batch cart
+	 * uses its own.
+	 */
+	public final class Tally {
+
+		private final long[] nanos = new long[TYPES.length];
+		private final int[] evaluated = new int[TYPES.length];
+		private final int[] applied = new int[TYPES.length];
+
+		private Tally() {
+		}
+
+		/**
+		 * The start time to pass to {@link #add}, or 0 when evaluations are not
+		 * timed.
+		 */
+		public long start() {
+			return timed ? System.nanoTime() : 0;
+		}
+
+		public void add(CouponType type, long start, boolean isApplicable) {
+			int index = type.ordinal();
+			if (timed) {
+				nanos[index] += System.nanoTime() - start;
+			}
+			evaluated[index]++;
+			if (isApplicable) {
+				applied[index]++;
+			}
+		}
+
+		/**
+		 * Records the types that had at least one candidate, unless called
+		 * during warm-up.
+		 */
+		public void record() {
+			if (WarmUpContext.isActive()) {
+				return;
+			}
+			for (int index = 0; index < TYPES.length; index++) {
+				if (evaluated[index] == 0) {
+					continue;
+				}
+				if (timed) {
+					timers[index].record(nanos[index], TimeUnit.NANOSECONDS);
+				}
+				candidates[index].record(evaluated[index]);
+				applicable[index].record(applied[index]);
+			}
+		}
+	}
+}
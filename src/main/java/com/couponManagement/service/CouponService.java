@@ -1,17 +1,26 @@
 package com.couponManagement.service;
 
 import com.couponManagement.dto.*;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CouponService {
 
     CouponDto createCoupon(CreateCouponRequest request);
+    BulkCreateCouponsResponse createCouponsBulk(InputStream ndjson);
     CouponDto getCouponById(Long couponId);
     List<CouponDto> getAllCoupons();
     List<CouponDto> getActiveCoupons();
+    CouponPageResponse getCouponPage(long afterId, int limit, boolean activeOnly);
+    void exportCoupons(boolean activeOnly, Consumer<CouponDto> sink);
     CouponDto updateCoupon(Long couponId, CreateCouponRequest request);
     void deleteCoupon(Long couponId);
 
     ApplicableCouponsResponse getApplicableCoupons(CartDto cart);
+    ApplicableCouponsResponse getBestCoupons(CartDto cart, int limit);
+    void getApplicableCouponsBatch(BatchApplicableCouponsRequest request, Consumer<BatchApplicableCouponsItem> sink);
     ApplyCouponResponse applyCoupon(Long couponId, CartDto cart);
+    Optional<ApplyCouponResponse> applyCouponByCode(String couponCode, CartDto cart);
 }
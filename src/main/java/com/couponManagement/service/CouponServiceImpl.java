@@ -1,38 +1,236 @@
 package com.couponManagement.service;
 
+import com.couponManagement.config.RepositoryCallCounter;
+import com.couponManagement.constants.CouponChangeType;
 import com.couponManagement.constants.CouponType;
 import com.couponManagement.dto.*;
+import com.couponManagement.engine.ApplicableCouponsCache;
+import com.couponManagement.engine.BxGyRule;
+import com.couponManagement.engine.CartFingerprint;
+import com.couponManagement.engine.CartView;
+import com.couponManagement.engine.CartWiseRule;
+import com.couponManagement.engine.CouponCatalog;
+import com.couponManagement.engine.CouponCatalogSnapshot;
+import com.couponManagement.engine.CouponChangeLog;
+import com.couponManagement.engine.CouponCodeFilter;
+import com.couponManagement.engine.CouponRule;
+import com.couponManagement.engine.Money;
+import com.couponManagement.engine.ProductPriceCache;
+import com.couponManagement.engine.ProductPrices;
+import com.couponManagement.engine.ProductWiseRule;
+import com.couponManagement.engine.RuleCodec;
 import com.couponManagement.entity.*;
 import com.couponManagement.exception.CouponNotFoundException;
 import com.couponManagement.exception.InvalidCouponException;
 import com.couponManagement.repository.CouponRepository;
-import com.couponManagement.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class CouponServiceImpl implements CouponService {
 
+	// Discount returned by the evaluators when a rule does not apply to a cart
+	private static final long NOT_APPLICABLE = -1L;
+
 	private final CouponRepository couponRepository;
-	private final ProductRepository productRepository;
+	private final ProductPriceCache productPriceCache;
+	private final ApplicableCouponsCache applicableCouponsCache;
+	private final CouponCatalog couponCatalog;
+	private final CouponChangeLog couponChangeLog;
+	private final CouponCodeFilter couponCodeFilter;
+	private final CouponCodeGenerator couponCodeGenerator;
+	private final CouponEvaluationMetrics evaluationMetrics;
+
+	private final ForkJoinPool batchPool;
+	private final int batchChunkSize;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final ObjectMapper objectMapper;
+	private final Validator validator;
+	private final TransactionTemplate bulkTransactionTemplate;
+	private final int bulkBatchSize;
 
 	@Autowired
-	public CouponServiceImpl(CouponRepository couponRepository, ProductRepository productRepository) {
+	public CouponServiceImpl(CouponRepository couponRepository, ProductPriceCache productPriceCache,
+			ApplicableCouponsCache applicableCouponsCache, CouponCatalog couponCatalog,
+			CouponChangeLog couponChangeLog, CouponCodeFilter couponCodeFilter, CouponCodeGenerator couponCodeGenerator, ObjectMapper objectMapper,
+			Validator validator, CouponEvaluationMetrics evaluationMetrics, PlatformTransactionManager transactionManager,
+			@Value("${coupon.batch.parallelism:0}") int batchParallelism,
+			@Value("${coupon.batch.chunk-size:256}") int batchChunkSize,
+			@Value("${coupon.bulk.batch-size:500}") int bulkBatchSize) {
 		this.couponRepository = couponRepository;
-		this.productRepository = productRepository;
+		this.productPriceCache = productPriceCache;
+		this.applicableCouponsCache = applicableCouponsCache;
+		this.couponCatalog = couponCatalog;
+		this.couponChangeLog = couponChangeLog;
+		this.couponCodeFilter = couponCodeFilter;
+		this.couponCodeGenerator = couponCodeGenerator;
+		this.evaluationMetrics = evaluationMetrics;
+		this.batchPool = new ForkJoinPool(
+				batchParallelism > 0 ? batchParallelism : Runtime.getRuntime().availableProcessors());
+		this.batchChunkSize = Math.max(1, batchChunkSize);
+		this.objectMapper = objectMapper;
+		this.validator = validator;
+		this.bulkTransactionTemplate = new TransactionTemplate(transactionManager);
+		this.bulkTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.bulkBatchSize = Math.max(1, bulkBatchSize);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		batchPool.shutdown();
 	}
 
 	@Override
 	public CouponDto createCoupon(CreateCouponRequest request) {
+		Coupon coupon = buildCoupon(request, couponCodeGenerator.nextCode());
+
+		coupon = couponRepository.save(coupon);
+		couponChangeLog.record(coupon, CouponChangeType.CREATED);
+		couponCatalog.refreshAfterCommit();
+
+		return convertToDto(coupon);
+	}
+
+	/**
+	 * Imports one {@link CreateCouponRequest} per line. Rows are persisted in
+	 * chunks of {@code coupon.bulk.batch-size}, each chunk in its own
+	 * transaction and sent as JDBC insert batches. A chunk that fails is retried
+	 * row by row so only the offending rows are reported; the catalog catches
+	 * up with the change log once at the end.
+	 */
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public BulkCreateCouponsResponse createCouponsBulk(InputStream ndjson) {
+		long startNanos = System.nanoTime();
+		BulkImportResult result = new BulkImportResult();
+		List<BulkCouponRow> chunk = new ArrayList<>(bulkBatchSize);
+		Iterator<String> codes = Collections.emptyIterator();
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+			long lineNumber = 0;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				result.received++;
+				try {
+					CreateCouponRequest request = parseBulkRow(line);
+					if (!codes.hasNext()) {
+						// One reservation covers a chunk's worth of rows
+						codes = couponCodeGenerator.reserve(bulkBatchSize).iterator();
+					}
+					String couponCode = codes.next();
+					chunk.add(new BulkCouponRow(lineNumber, request, couponCode, buildCoupon(request, couponCode)));
+				} catch (JsonProcessingException e) {
+					result.rowFailed(lineNumber, "Malformed coupon: " + e.getOriginalMessage());
+				} catch (RuntimeException e) {
+					result.rowFailed(lineNumber, e.getMessage());
+				}
+				if (chunk.size() == bulkBatchSize) {
+					persistBulkChunk(chunk, result);
+					chunk.clear();
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		persistBulkChunk(chunk, result);
+
+		if (result.created > 0) {
+			couponCatalog.refreshChanges();
+		}
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+		return new BulkCreateCouponsResponse(result.received, result.created, result.failed, elapsedMillis,
+				result.errors);
+	}
+
+	private CreateCouponRequest parseBulkRow(String line) throws JsonProcessingException {
+		CreateCouponRequest request = objectMapper.readValue(line, CreateCouponRequest.class);
+		Set<ConstraintViolation<CreateCouponRequest>> violations = validator.validate(request);
+		if (!violations.isEmpty()) {
+			throw new InvalidCouponException(violations.stream().map(ConstraintViolation::getMessage)
+					.sorted().collect(Collectors.joining(", ")));
+		}
+		return request;
+	}
+
+	private void persistBulkChunk(List<BulkCouponRow> rows, BulkImportResult result) {
+		if (rows.isEmpty()) {
+			return;
+		}
+		try {
+			bulkTransactionTemplate.executeWithoutResult(status -> {
+				List<Coupon> coupons = new ArrayList<>(rows.size());
+				for (BulkCouponRow row : rows) {
+					coupons.add(couponRepository.save(row.coupon));
+				}
+				couponChangeLog.record(coupons, CouponChangeType.CREATED);
+			});
+			result.created += rows.size();
+		} catch (RuntimeException chunkFailure) {
+			// The rolled-back entities already hold ids, so each row is rebuilt
+			// from its request, keeping the code it was issued
+			for (BulkCouponRow row : rows) {
+				try {
+					Coupon coupon = buildCoupon(row.request, row.couponCode);
+					bulkTransactionTemplate.executeWithoutResult(status -> couponChangeLog
+							.record(couponRepository.save(coupon), CouponChangeType.CREATED));
+					result.created++;
+				} catch (RuntimeException e) {
+					result.rowFailed(row.lineNumber, e.getMessage());
+				}
+			}
+		}
+	}
+
+	private Coupon buildCoupon(CreateCouponRequest request, String couponCode) {
 		CouponType couponType;
 		try {
 			couponType = CouponType.valueOf(request.getType().toUpperCase());
@@ -40,7 +238,8 @@ public class CouponServiceImpl implements CouponService {
 			throw new InvalidCouponException("Invalid coupon type: " + request.getType());
 		}
 
-		Coupon coupon = new Coupon(generateCouponCode(), couponType);
+		Coupon coupon = new Coupon(couponCode, couponType);
+		couponCodeFilter.codeIssued(couponCode);
 
 		// Create appropriate detail entity based on coupon type
 		switch (couponType) {
@@ -54,10 +253,8 @@ public class CouponServiceImpl implements CouponService {
 			createBxGyCoupon(coupon, request.getBxGyDetails());
 			break;
 		}
-
-		coupon = couponRepository.save(coupon);
-
-		return convertToDto(coupon);
+		coupon.setRuleEncoding(RuleCodec.encode(coupon));
+		return coupon;
 	}
 
 	@Override
@@ -81,6 +278,47 @@ public class CouponServiceImpl implements CouponService {
 				.collect(Collectors.toList());
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public CouponPageResponse getCouponPage(long afterId, int limit, boolean activeOnly) {
+		if (limit < 1 || limit > CouponPageResponse.MAX_LIMIT) {
+			throw new InvalidCouponException("Limit must be between 1 and " + CouponPageResponse.MAX_LIMIT);
+		}
+		PageRequest page = PageRequest.of(0, limit);
+		List<Coupon> coupons = activeOnly ? couponRepository.findActivePageWithDetails(afterId, page)
+				: couponRepository.findPageWithDetails(afterId, page);
+
+		Long nextAfterId = coupons.size() == limit ? coupons.get(limit - 1).getId() : null;
+		return new CouponPageResponse(coupons.stream().map(this::convertToDto).collect(Collectors.toList()),
+				nextAfterId);
+	}
+
+	/**
+	 * Hands every coupon to the sink in id order while reading them through a
+	 * forward-only cursor. Coupons are written and detached in chunks, so memory
+	 * does not grow with the size of the catalog, while BxGy product lists are
+	 * still batch-loaded for a whole chunk at a time.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void exportCoupons(boolean activeOnly, Consumer<CouponDto> sink) {
+		try (Stream<Coupon> coupons = activeOnly ? couponRepository.streamActiveWithDetails()
+				: couponRepository.streamAllWithDetails()) {
+			List<Coupon> chunk = new ArrayList<>(BxGyCoupon.BATCH_SIZE);
+			Iterator<Coupon> iterator = coupons.iterator();
+			while (iterator.hasNext()) {
+				chunk.add(iterator.next());
+				if (chunk.size() == BxGyCoupon.BATCH_SIZE || !iterator.hasNext()) {
+					for (Coupon coupon : chunk) {
+						sink.accept(convertToDto(coupon));
+					}
+					chunk.forEach(entityManager::detach);
+					chunk.clear();
+				}
+			}
+		}
+	}
+
 	@Override
 	public CouponDto updateCoupon(Long couponId, CreateCouponRequest request) {
 		Coupon coupon = couponRepository.findByIdWithDetails(couponId)
@@ -111,10 +349,13 @@ public class CouponServiceImpl implements CouponService {
 			createBxGyCoupon(coupon, request.getBxGyDetails());
 			break;
 		}
+		coupon.setRuleEncoding(RuleCodec.encode(coupon));
 
 		coupon.setIsActive(true);
 
 		coupon = couponRepository.save(coupon);
+		couponChangeLog.record(coupon, CouponChangeType.UPDATED);
+		couponCatalog.refreshAfterCommit();
 		return convertToDto(coupon);
 	}
 
@@ -125,161 +366,367 @@ public class CouponServiceImpl implements CouponService {
 
 		coupon.setIsActive(false);
 		couponRepository.save(coupon);
+		couponChangeLog.record(coupon, CouponChangeType.DELETED);
+		couponCatalog.refreshAfterCommit();
 	}
 
 	@Override
 	@Transactional(readOnly = true)
 	public ApplicableCouponsResponse getApplicableCoupons(CartDto cart) {
-		List<ApplicableCouponDto> applicableCoupons = new ArrayList<>();
+		// Rules come from the in-memory catalog snapshot rather than the database
+		return new ApplicableCouponsResponse(findCachedCoupons(cart, null));
+	}
 
-		List<Coupon> activeCoupons = couponRepository.findByIsActiveTrueWithDetails();
+	@Override
+	@Transactional(readOnly = true)
+	public ApplicableCouponsResponse getBestCoupons(CartDto cart, int limit) {
+		if (limit < 1 || limit > ApplicableCouponsResponse.MAX_LIMIT) {
+			throw new InvalidCouponException("Limit must be between 1 and " + ApplicableCouponsResponse.MAX_LIMIT);
+		}
+		return new ApplicableCouponsResponse(findCachedCoupons(cart, limit));
+	}
 
-		Map<Long, Integer> cartProductQuantities = cart.getItems().stream()
-				.collect(Collectors.toMap(item -> Long.valueOf(item.getProductId()), CartItemDto::getQuantity));
+	/**
+	 * Serves repeated carts from the result cache. The price version is read
+	 * before evaluating, so a result computed while a price changed is stored
+	 * under the old version and never served again.
+	 */
+	private List<ApplicableCouponDto> findCachedCoupons(CartDto cart, Integer limit) {
+		CouponCatalogSnapshot snapshot = couponCatalog.snapshot();
+		// Prices enter the engine as paise; BigDecimal is only used again for the response
+		CartView cartView = CartView.of(cart.getItems());
+		CartFingerprint fingerprint = CartFingerprint.of(cartView, snapshot.getVersion(),
+				productPriceCache.version(), limit != null ? limit : 0);
+
+		List<ApplicableCouponDto> coupons = applicableCouponsCache.get(fingerprint);
+		if (coupons == null) {
+			coupons = applicableCouponsCache.put(fingerprint, findCoupons(snapshot, cartView, limit));
+		}
+		return coupons;
+	}
 
-		Map<String, BigDecimal> cartPrices = cart.getItems().stream()
-				.collect(Collectors.toMap(CartItemDto::getProductId, CartItemDto::getPrice));
+	private List<ApplicableCouponDto> findCoupons(CouponCatalogSnapshot snapshot, CartView cart, Integer limit) {
+		return limit != null ? findBestCoupons(snapshot, cart, limit) : findApplicableCoupons(snapshot, cart);
+	}
 
-		BigDecimal cartTotal = cart.getTotalPrice();
+	/**
+	 * Evaluates a batch of carts against a single catalog snapshot. Carts are
+	 * split into chunks evaluated in parallel on the batch pool; each chunk is
+	 * handed to the sink, in cart order, before the next one starts, so only one
+	 * chunk of results is held in memory at a time. A cart that cannot be
+	 * evaluated yields an item carrying the error instead of failing the batch.
+	 */
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void getApplicableCouponsBatch(BatchApplicableCouponsRequest request,
+			Consumer<BatchApplicableCouponsItem> sink) {
+		CouponCatalogSnapshot snapshot = couponCatalog.snapshot();
+		List<CartDto> carts = request.getCarts();
+		Integer limit = request.getLimit();
+
+		for (int chunkStart = 0; chunkStart < carts.size(); chunkStart += batchChunkSize) {
+			int chunkEnd = Math.min(chunkStart + batchChunkSize, carts.size());
+			IntStream indexes = IntStream.range(chunkStart, chunkEnd);
+			LongAdder workerRepositoryCalls = new LongAdder();
+			List<BatchApplicableCouponsItem> items = batchPool.submit(() -> indexes.parallel()
+					.mapToObj(index -> {
+						long callsBefore = RepositoryCallCounter.current();
+						BatchApplicableCouponsItem item = evaluateBatchItem(snapshot, index, carts.get(index), limit);
+						workerRepositoryCalls.add(RepositoryCallCounter.current() - callsBefore);
+						return item;
+					})
+					.collect(Collectors.toList())).join();
+			// Counted on the pool's threads; the caller's meters report them
+			RepositoryCallCounter.add(workerRepositoryCalls.sum());
+			items.forEach(sink);
+		}
+	}
 
-		for (Coupon coupon : activeCoupons) {
-			ApplicableCouponDto applicableCoupon = null;
+	private BatchApplicableCouponsItem evaluateBatchItem(CouponCatalogSnapshot snapshot, int index, CartDto cart,
+			Integer limit) {
+		try {
+			List<ApplicableCouponDto> coupons = findCoupons(snapshot, CartView.of(cart.getItems()), limit);
+			return new BatchApplicableCouponsItem(index, coupons, null);
+		} catch (RuntimeException e) {
+			return new BatchApplicableCouponsItem(index, null, e.getMessage());
+		}
+	}
 
-			switch (coupon.getCouponType()) {
-			case CART_WISE:
-				applicableCoupon = checkCartWiseApplicability(coupon, cartTotal);
-				break;
-			case PRODUCT_WISE:
-				applicableCoupon = checkProductWiseApplicability(coupon, cartProductQuantities, cartPrices);
-				break;
-			case BXGY:
-				applicableCoupon = checkBxGyApplicability(coupon, cartProductQuantities);
-				break;
-			}
+	private List<ApplicableCouponDto> findApplicableCoupons(CouponCatalogSnapshot snapshot, CartView cartView) {
+		List<ApplicableCouponDto> applicableCoupons = new ArrayList<>();
 
-			if (applicableCoupon != null) {
-				applicableCoupons.add(applicableCoupon);
+		// Only rules reachable from the cart's products or total are visited
+		int[] candidates = snapshot.candidateOrdinals(cartView);
+		ProductPrices prices = prefetchGetProductPrices(snapshot, candidates, cartView);
+		CouponEvaluationMetrics.Tally tally = evaluationMetrics.tally();
+
+		for (int ordinal : candidates) {
+			CouponRule rule = snapshot.getRule(ordinal);
+			long start = tally.start();
+			long discount = calculateDiscount(rule, cartView, prices);
+			tally.add(rule.getCouponType(), start, discount != NOT_APPLICABLE);
+			if (discount != NOT_APPLICABLE) {
+				applicableCoupons.add(toApplicableCoupon(rule, discount, cartView.totalPaise()));
 			}
 		}
 
-		return new ApplicableCouponsResponse(applicableCoupons);
+		tally.record();
+		return applicableCoupons;
 	}
 
-	private ApplicableCouponDto checkCartWiseApplicability(Coupon coupon, BigDecimal cartTotal) {
-		CartWiseCoupon cartWise = coupon.getCartWiseDetails();
-		if (cartWise != null && cartTotal.compareTo(cartWise.getThreshold()) >= 0) {
-			BigDecimal discountAmount = cartTotal.multiply(cartWise.getDiscount()).divide(BigDecimal.valueOf(100));
-			return new ApplicableCouponDto(coupon.getCouponCode(), coupon.getCouponType().toString(), discountAmount,
-					"Get " + cartWise.getDiscount() + "% off on cart total of " + cartTotal + " (₹" + discountAmount
-							+ ")");
+	private List<ApplicableCouponDto> findBestCoupons(CouponCatalogSnapshot snapshot, CartView cartView, int limit) {
+		int[] candidates = snapshot.candidateOrdinals(cartView);
+		ProductPrices prices = prefetchGetProductPrices(snapshot, candidates, cartView);
+
+		// Min-heap holding the best coupons seen so far; the root is the current
+		// K-th best. Every candidate is still evaluated in full, as there is no
+		// cheaper bound on its discount; one that cannot beat the root just
+		// skips the heap. Only the K kept get descriptions built.
+		PriorityQueue<RankedCoupon> best = new PriorityQueue<>(Math.max(1, Math.min(limit, candidates.length)),
+				RankedCoupon.BEST_FIRST.reversed());
+		CouponEvaluationMetrics.Tally tally = evaluationMetrics.tally();
+
+		for (int ordinal : candidates) {
+			CouponRule rule = snapshot.getRule(ordinal);
+			RankedCoupon kthBest = best.size() == limit ? best.peek() : null;
+
+			long start = tally.start();
+			long discount = calculateDiscount(rule, cartView, prices);
+			tally.add(rule.getCouponType(), start, discount != NOT_APPLICABLE);
+			if (discount == NOT_APPLICABLE || (kthBest != null && discount < kthBest.discount)) {
+				continue;
+			}
+			RankedCoupon candidate = new RankedCoupon(rule, discount);
+			if (kthBest == null) {
+				best.add(candidate);
+			} else if (RankedCoupon.BEST_FIRST.compare(candidate, kthBest) < 0) {
+				best.poll();
+				best.add(candidate);
+			}
+		}
+		tally.record();
+
+		// Descriptions are only built for the coupons actually returned
+		List<RankedCoupon> ranked = new ArrayList<>(best);
+		ranked.sort(RankedCoupon.BEST_FIRST);
+		List<ApplicableCouponDto> bestCoupons = new ArrayList<>(ranked.size());
+		for (RankedCoupon rankedCoupon : ranked) {
+			bestCoupons.add(toApplicableCoupon(rankedCoupon.rule, rankedCoupon.discount, cartView.totalPaise()));
 		}
-		return null;
-	}
 
-	private ApplicableCouponDto checkProductWiseApplicability(Coupon coupon, Map<Long, Integer> cartProducts,
-			Map<String, BigDecimal> cartPrices) {
-		ProductWiseCoupon productWise = coupon.getProductWiseDetails();
-		if (productWise != null && cartProducts.containsKey(productWise.getProductId())) {
-			Integer quantity = cartProducts.get(productWise.getProductId());
-			BigDecimal discountAmount = BigDecimal.ZERO;
+		return bestCoupons;
+	}
 
-			if (quantity != null) {
-				BigDecimal itemPrice = cartPrices.get(productWise.getProductId().toString());
-				if (itemPrice != null) {
-					// discount = (price * quantity * percentage) / 100
-					BigDecimal totalItemPrice = itemPrice.multiply(BigDecimal.valueOf(quantity));
-					discountAmount = totalItemPrice.multiply(productWise.getDiscount()).divide(BigDecimal.valueOf(100));
+	/**
+	 * Resolves, through the price cache and at most one query, the catalog
+	 * prices of every get product that a BxGy candidate could hand out for free,
+	 * so evaluating BxGy rules needs no further database access.
+	 */
+	private ProductPrices prefetchGetProductPrices(CouponCatalogSnapshot snapshot, int[] candidates, CartView cart) {
+		Set<Long> productIds = new LinkedHashSet<>();
+		for (int ordinal : candidates) {
+			CouponRule rule = snapshot.getRule(ordinal);
+			if (rule.getCouponType() != CouponType.BXGY) {
+				continue;
+			}
+			BxGyRule bxGy = (BxGyRule) rule;
+			if (calculateBxGyRepetitions(bxGy, cart) == 0) {
+				continue;
+			}
+			for (int i = 0; i < bxGy.getGetCount(); i++) {
+				if (cart.quantity(bxGy.getGetProductId(i)) > 0) {
+					productIds.add(bxGy.getGetProductId(i));
 				}
 			}
+		}
+		if (productIds.isEmpty()) {
+			return ProductPrices.EMPTY;
+		}
+		return productPriceCache.prices(productIds);
+	}
+
+	/**
+	 * Returns the discount in paise the rule gives on the cart, or
+	 * {@link #NOT_APPLICABLE} if the rule does not apply to it.
+	 */
+	private long calculateDiscount(CouponRule rule, CartView cart, ProductPrices prices) {
+		switch (rule.getCouponType()) {
+		case CART_WISE:
+			return evaluateCartWise((CartWiseRule) rule, cart);
+		case PRODUCT_WISE:
+			return evaluateProductWise((ProductWiseRule) rule, cart);
+		case BXGY:
+			return evaluateBxGy((BxGyRule) rule, cart, prices);
+		default:
+			return NOT_APPLICABLE;
+		}
+	}
+
+	private ApplicableCouponDto toApplicableCoupon(CouponRule rule, long discountPaise, long cartTotalPaise) {
+		BigDecimal discountAmount = Money.toRupees(discountPaise);
+		String description;
+		switch (rule.getCouponType()) {
+		case CART_WISE:
+			CartWiseRule cartWise = (CartWiseRule) rule;
+			description = "Get " + Money.toPercent(cartWise.getDiscountBasisPoints()) + "% off on cart total of "
+					+ Money.toRupees(cartTotalPaise) + " (₹" + discountAmount + ")";
+			break;
+		case PRODUCT_WISE:
+			ProductWiseRule productWise = (ProductWiseRule) rule;
+			description = "Get " + Money.toPercent(productWise.getDiscountBasisPoints()) + "% off on product "
+					+ productWise.getProductId() + " - Save ₹" + discountAmount;
+			break;
+		default:
+			BxGyRule bxGy = (BxGyRule) rule;
+			description = "Buy " + bxGy.getBuyCount() + " get " + bxGy.getGetCount() + " free (up to "
+					+ bxGy.getRepetitionLimit() + " times) - Save ₹" + discountAmount;
+			break;
+		}
+		return new ApplicableCouponDto(rule.getCouponCode(), rule.getCouponType().toString(), discountAmount,
+				description);
+	}
 
-			return new ApplicableCouponDto(coupon.getCouponCode(), coupon.getCouponType().toString(), discountAmount,
-					"Get " + productWise.getDiscount() + "% off on product " + productWise.getProductId() + " - Save ₹"
-							+ discountAmount);
+	private long evaluateCartWise(CartWiseRule rule, CartView cart) {
+		if (cart.totalPaise() >= rule.getThresholdPaise()) {
+			return Money.percentOf(cart.totalPaise(), rule.getDiscountBasisPoints());
 		}
-		return null;
+		return NOT_APPLICABLE;
 	}
 
-	private ApplicableCouponDto checkBxGyApplicability(Coupon coupon, Map<Long, Integer> cartProducts) {
-		BxGyCoupon bxGy = coupon.getBxGyDetails();
-		if (bxGy == null)
-			return null;
+	private long evaluateProductWise(ProductWiseRule rule, CartView cart) {
+		if (cart.quantity(rule.getProductId()) == 0) {
+			return NOT_APPLICABLE;
+		}
+		// discount = (price * quantity * percentage) / 100
+		return Money.percentOf(cart.amount(rule.getProductId()), rule.getDiscountBasisPoints());
+	}
 
-		boolean canApply = true;
+	/**
+	 * Number of times the buy products in the cart satisfy the rule, before the
+	 * repetition limit is applied. Zero when a buy product is missing or short.
+	 */
+	private int calculateBxGyRepetitions(BxGyRule rule, CartView cart) {
 		int maxFreeItems = 0;
 
-		for (BxGyCoupon.ProductQuantity buyProduct : bxGy.getBuyProducts()) {
-			Integer cartQuantity = cartProducts.get(buyProduct.getProductId());
-			if (cartQuantity == null || cartQuantity < buyProduct.getQuantity()) {
-				canApply = false;
-				break;
+		for (int i = 0; i < rule.getBuyCount(); i++) {
+			int cartQuantity = cart.quantity(rule.getBuyProductId(i));
+			if (cartQuantity < rule.getBuyQuantity(i)) {
+				return 0;
 			}
 			// Calculate how many times we can apply this.
-			int timesApplicable = cartQuantity / buyProduct.getQuantity();
+			int timesApplicable = cartQuantity / rule.getBuyQuantity(i);
 			if (maxFreeItems == 0 || timesApplicable < maxFreeItems) {
 				maxFreeItems = timesApplicable;
 			}
 		}
 
-		if (canApply && maxFreeItems > 0) {
-			int actualFreeItems = Math.min(maxFreeItems, bxGy.getRepetitionLimit());
+		return maxFreeItems;
+	}
 
-			Map<Long, Product> productMap = getProductMap(bxGy.getGetProducts().stream()
-					.map(BxGyCoupon.ProductQuantity::getProductId).collect(Collectors.toList()));
+	private long evaluateBxGy(BxGyRule rule, CartView cart, ProductPrices prices) {
+		int maxFreeItems = calculateBxGyRepetitions(rule, cart);
+		if (maxFreeItems == 0) {
+			return NOT_APPLICABLE;
+		}
 
-			BigDecimal totalDiscount = BigDecimal.ZERO;
-			for (BxGyCoupon.ProductQuantity getProduct : bxGy.getGetProducts()) {
-				Product product = productMap.get(getProduct.getProductId());
-				if (product != null) {
-					Integer cartQuantity = cartProducts.get(getProduct.getProductId());
-					if (cartQuantity != null) {
-						int freeQuantity = Math.min(actualFreeItems * getProduct.getQuantity(), cartQuantity);
-						// Add the value of free items to total discount
-						totalDiscount = totalDiscount
-								.add(product.getPrice().multiply(BigDecimal.valueOf(freeQuantity)));
-					}
-				}
-			}
+		int actualFreeItems = Math.min(maxFreeItems, rule.getRepetitionLimit());
 
-			return new ApplicableCouponDto(coupon.getCouponCode(), coupon.getCouponType().toString(), totalDiscount,
-					"Buy " + bxGy.getBuyProducts().size() + " get " + bxGy.getGetProducts().size() + " free (up to "
-							+ bxGy.getRepetitionLimit() + " times) - Save ₹" + totalDiscount);
+		long totalDiscount = 0;
+		for (int i = 0; i < rule.getGetCount(); i++) {
+			long price = prices.price(rule.getGetProductId(i));
+			int cartQuantity = cart.quantity(rule.getGetProductId(i));
+			if (price != ProductPrices.UNKNOWN_PRICE && cartQuantity > 0) {
+				int freeQuantity = Math.min(actualFreeItems * rule.getGetQuantity(i), cartQuantity);
+				// Add the value of free items to total discount
+				totalDiscount = Math.addExact(totalDiscount, Money.times(price, freeQuantity));
+			}
 		}
 
-		return null;
+		return totalDiscount;
 	}
 
 	@Override
 	@Transactional(readOnly = true)
 	public ApplyCouponResponse applyCoupon(Long couponId, CartDto cart) {
-		Coupon coupon = couponRepository.findByIdWithDetails(couponId)
-				.orElseThrow(() -> new CouponNotFoundException(couponId.toString()));
+		CouponRule rule = couponCatalog.snapshot().getRuleById(couponId);
+		if (rule == null) {
+			rule = compileUnlisted(couponRepository.findByIdWithDetails(couponId)
+					.orElseThrow(() -> new CouponNotFoundException(couponId.toString())));
+		}
+		return applyRule(rule, cart);
+	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<ApplyCouponResponse> applyCouponByCode(String couponCode, CartDto cart) {
+		// Codes are resolved through the catalog's in-memory index
+		CouponRule rule = couponCatalog.snapshot().getRuleByCode(couponCode);
+		if (rule == null) {
+			// Guessed and mistyped codes are turned away without a query or an
+			// exception
+			if (!couponCodeFilter.mightExist(couponCode)) {
+				return Optional.empty();
+			}
+			Optional<Coupon> coupon = couponRepository.findByCouponCodeWithDetails(couponCode);
+			if (!coupon.isPresent()) {
+				couponCodeFilter.codeMissing(couponCode);
+				return Optional.empty();
+			}
+			rule = compileUnlisted(coupon.get());
+		}
+		return Optional.of(applyRule(rule, cart));
+	}
+
+	/**
+	 * The catalog only lists active coupons with valid details; anything else is
+	 * loaded just to report why it cannot be applied.
+	 */
+	private CouponRule compileUnlisted(Coupon coupon) {
 		if (!coupon.getIsActive()) {
 			throw new InvalidCouponException("Coupon is not active");
 		}
+		CouponRule rule = CouponRule.compile(coupon);
+		if (rule == null) {
+			throw new InvalidCouponException("Coupon details are missing");
+		}
+		return rule;
+	}
+
+	private ApplyCouponResponse applyRule(CouponRule rule, CartDto cart) {
+		CouponEvaluationMetrics.Tally tally = evaluationMetrics.tally();
+		long start = tally.start();
+		boolean applied = false;
+		try {
+			ApplyCouponResponse response = applyRule(rule, cart, CartView.of(cart.getItems()));
+			applied = true;
+			return response;
+		} finally {
+			tally.add(rule.getCouponType(), start, applied);
+			tally.record();
+		}
+	}
 
+	private ApplyCouponResponse applyRule(CouponRule rule, CartDto cart, CartView cartView) {
 		List<UpdatedCartItemDto> updatedItems = new ArrayList<>();
 		BigDecimal totalDiscount = BigDecimal.ZERO;
 
-		switch (coupon.getCouponType()) {
+		switch (rule.getCouponType()) {
 		case CART_WISE:
-			updatedItems = applyCartWiseCoupon(coupon, cart);
-			BigDecimal cartTotal = updatedItems.stream()
-					.map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-					.reduce(BigDecimal.ZERO, BigDecimal::add);
-			if (cartTotal.compareTo(coupon.getCartWiseDetails().getThreshold()) < 0) {
+			CartWiseRule cartWise = (CartWiseRule) rule;
+			if (cartView.totalPaise() < cartWise.getThresholdPaise()) {
 				throw new InvalidCouponException(
 						"Coupon is not applicable, as cart value is less than coupon threshold.");
 			}
-			totalDiscount = cartTotal.multiply(coupon.getCartWiseDetails().getDiscount())
-					.divide(BigDecimal.valueOf(100));
+			updatedItems = applyCartWiseCoupon(cart);
+			// Same fixed-point rounding as the applicable-coupons evaluation
+			totalDiscount = Money.toRupees(Money.percentOf(cartView.totalPaise(), cartWise.getDiscountBasisPoints()));
 			break;
 		case PRODUCT_WISE:
-			updatedItems = applyProductWiseCoupon(coupon, cart);
+			updatedItems = applyProductWiseCoupon((ProductWiseRule) rule, cart);
 			totalDiscount = calculateProductWiseDiscount(updatedItems);
 			break;
 		case BXGY:
-			updatedItems = applyBxGyCoupon(coupon, cart);
+			updatedItems = applyBxGyCoupon((BxGyRule) rule, cart, cartView);
 			totalDiscount = calculateBxGyDiscount(updatedItems, cart.getItems());
 			break;
 		}
@@ -295,47 +742,49 @@ public class CouponServiceImpl implements CouponService {
 		return new ApplyCouponResponse(updatedItems, originalTotalPrice, totalDiscount, finalPrice);
 	}
 
-	private List<UpdatedCartItemDto> applyCartWiseCoupon(Coupon coupon, CartDto cart) {
+	private List<UpdatedCartItemDto> applyCartWiseCoupon(CartDto cart) {
 		return cart.getItems().stream().map(item -> {
 			return new UpdatedCartItemDto(item.getProductId(), item.getQuantity(), item.getPrice(), BigDecimal.ZERO);
 		}).collect(Collectors.toList());
 	}
 
-	private List<UpdatedCartItemDto> applyProductWiseCoupon(Coupon coupon, CartDto cart) {
-		ProductWiseCoupon productWise = coupon.getProductWiseDetails();
-		Long targetProductId = productWise.getProductId();
-		BigDecimal discountPercentage = productWise.getDiscount();
-
+	private List<UpdatedCartItemDto> applyProductWiseCoupon(ProductWiseRule rule, CartDto cart) {
 		return cart.getItems().stream().map(item -> {
 			BigDecimal itemDiscount = BigDecimal.ZERO;
-			if (item.getProductId().equals(targetProductId.toString())) {
+			if (CartView.parseProductId(item.getProductId()) == rule.getProductId()) {
 				// Calculate actual discount amount: (price * quantity * percentage) / 100
-				BigDecimal totalItemPrice = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-				itemDiscount = totalItemPrice.multiply(discountPercentage).divide(BigDecimal.valueOf(100));
+				long totalItemPrice = Money.times(Money.toPaise(item.getPrice()), item.getQuantity());
+				itemDiscount = Money.toRupees(Money.percentOf(totalItemPrice, rule.getDiscountBasisPoints()));
 			}
 			return new UpdatedCartItemDto(item.getProductId(), item.getQuantity(), item.getPrice(), itemDiscount);
 		}).collect(Collectors.toList());
 	}
 
-	private List<UpdatedCartItemDto> applyBxGyCoupon(Coupon coupon, CartDto cart) {
-		BxGyCoupon bxGy = coupon.getBxGyDetails();
-
-		Map<String, CartItemDto> cartItemMap = cart.getItems().stream()
-				.collect(Collectors.toMap(CartItemDto::getProductId, item -> item));
-
-		// Calculate how many free items we can give
-		int maxFreeItems = calculateMaxFreeItems(bxGy, cartItemMap);
+	private List<UpdatedCartItemDto> applyBxGyCoupon(BxGyRule rule, CartDto cart, CartView cartView) {
+		// Lines for the same product are merged in the cart view, so a duplicated
+		// line cannot unlock more repetitions or more free items than the product
+		// total
+		int maxFreeItems = Math.min(calculateBxGyRepetitions(rule, cartView), rule.getRepetitionLimit());
+
+		// Free quantity still to hand out for each get product
+		int[] remainingFree = new int[rule.getGetCount()];
+		for (int i = 0; i < rule.getGetCount(); i++) {
+			remainingFree[i] = Math.min(maxFreeItems * rule.getGetQuantity(i),
+					cartView.quantity(rule.getGetProductId(i)));
+		}
 
 		// Apply the free items to getProducts
 		List<UpdatedCartItemDto> updatedItems = new ArrayList<>();
 
 		for (CartItemDto item : cart.getItems()) {
+			long productId = CartView.parseProductId(item.getProductId());
 			int originalQuantity = item.getQuantity();
 			int additionalFreeQuantity = 0;
 
-			for (BxGyCoupon.ProductQuantity getProduct : bxGy.getGetProducts()) {
-				if (item.getProductId().equals(getProduct.getProductId().toString())) {
-					additionalFreeQuantity = Math.min(maxFreeItems * getProduct.getQuantity(), originalQuantity);
+			for (int i = 0; i < rule.getGetCount(); i++) {
+				if (rule.getGetProductId(i) == productId) {
+					additionalFreeQuantity = Math.min(remainingFree[i], originalQuantity);
+					remainingFree[i] -= additionalFreeQuantity;
 					break;
 				}
 			}
@@ -347,60 +796,33 @@ public class CouponServiceImpl implements CouponService {
 		return updatedItems;
 	}
 
-	private int calculateMaxFreeItems(BxGyCoupon bxGy, Map<String, CartItemDto> cartItems) {
-		int maxFreeItems = Integer.MAX_VALUE;
-
-		for (BxGyCoupon.ProductQuantity buyProduct : bxGy.getBuyProducts()) {
-			CartItemDto cartItem = cartItems.get(buyProduct.getProductId().toString());
-			if (cartItem == null) {
-				return 0; // Can't apply if any buy product is missing
-			}
-
-			int timesApplicable = cartItem.getQuantity() / buyProduct.getQuantity();
-			maxFreeItems = Math.min(maxFreeItems, timesApplicable);
-		}
-
-		return Math.min(maxFreeItems, bxGy.getRepetitionLimit());
-	}
-
 	private BigDecimal calculateProductWiseDiscount(List<UpdatedCartItemDto> updatedItems) {
 		return updatedItems.stream().map(UpdatedCartItemDto::getDiscount).reduce(BigDecimal.ZERO, BigDecimal::add);
 	}
 
 	private BigDecimal calculateBxGyDiscount(List<UpdatedCartItemDto> updatedItems, List<CartItemDto> originalItems) {
-		// For BxGy, the discount is the value of the free items added
-		BigDecimal discount = BigDecimal.ZERO;
-
-		Map<String, CartItemDto> originalItemMap = originalItems.stream()
-				.collect(Collectors.toMap(CartItemDto::getProductId, item -> item));
-
-		Map<Long, Product> productMap = getProductMap(updatedItems.stream().filter(updatedItem -> {
-			CartItemDto originalItem = originalItemMap.get(updatedItem.getProductId());
-			return originalItem != null && updatedItem.getQuantity() > originalItem.getQuantity();
-		}).map(updatedItem -> Long.valueOf(updatedItem.getProductId())).distinct().collect(Collectors.toList()));
-
-		for (UpdatedCartItemDto updatedItem : updatedItems) {
-			CartItemDto originalItem = originalItemMap.get(updatedItem.getProductId());
-			if (originalItem != null) {
-				int freeQuantity = updatedItem.getQuantity() - originalItem.getQuantity();
-				if (freeQuantity > 0) {
-					Product product = productMap.get(Long.valueOf(originalItem.getProductId()));
-					if (product != null) {
-						discount = discount.add(product.getPrice().multiply(BigDecimal.valueOf(freeQuantity)));
-					}
+		// For BxGy, the discount is the value of the free items added. Updated
+		// items are in the same order as the original cart lines.
+		Set<Long> freeProductIds = new LinkedHashSet<>();
+		for (int i = 0; i < updatedItems.size(); i++) {
+			if (updatedItems.get(i).getQuantity() > originalItems.get(i).getQuantity()) {
+				freeProductIds.add(CartView.parseProductId(originalItems.get(i).getProductId()));
+			}
+		}
+		ProductPrices prices = productPriceCache.prices(freeProductIds);
+
+		long discountPaise = 0;
+		for (int i = 0; i < updatedItems.size(); i++) {
+			int freeQuantity = updatedItems.get(i).getQuantity() - originalItems.get(i).getQuantity();
+			if (freeQuantity > 0) {
+				long price = prices.price(CartView.parseProductId(originalItems.get(i).getProductId()));
+				if (price != ProductPrices.UNKNOWN_PRICE) {
+					discountPaise = Math.addExact(discountPaise, Money.times(price, freeQuantity));
 				}
 			}
 		}
 
-		return discount;
-	}
-
-	private Map<Long, Product> getProductMap(List<Long> productIds) {
-		if (productIds == null || productIds.isEmpty()) {
-			return new HashMap<>();
-		}
-		List<Product> products = productRepository.findAllById(productIds);
-		return products.stream().collect(Collectors.toMap(Product::getId, product -> product));
+		return Money.toRupees(discountPaise);
 	}
 
 	private void createCartWiseCoupon(Coupon coupon, CartWiseCouponRequest details) {
@@ -445,10 +867,6 @@ public class CouponServiceImpl implements CouponService {
 		coupon.setBxGyDetails(bxGyCoupon);
 	}
 
-	private String generateCouponCode() {
-		return "CPN" + System.currentTimeMillis() + (int) (Math.random() * 1000);
-	}
-
 	private CouponDto convertToDto(Coupon coupon) {
 		Map<String, Object> details = extractDetailsFromEntity(coupon);
 		return new CouponDto(coupon.getId(), coupon.getCouponCode(), coupon.getCouponType().toString(), details,
@@ -485,4 +903,53 @@ public class CouponServiceImpl implements CouponService {
 
 		return details;
 	}
+
+	/**
+	 * An applicable rule paired with its discount, ordered best first: larger
+	 * discount, then lower coupon id.
+	 */
+	private static final class RankedCoupon {
+
+		static final Comparator<RankedCoupon> BEST_FIRST = Comparator
+				.comparingLong((RankedCoupon ranked) -> ranked.discount).reversed()
+				.thenComparingLong(ranked -> ranked.rule.getId());
+
+		final CouponRule rule;
+		final long discount;
+
+		RankedCoupon(CouponRule rule, long discount) {
+			this.rule = rule;
+			this.discount = discount;
+		}
+	}
+
+	private static final class BulkCouponRow {
+
+		private final long lineNumber;
+		private final CreateCouponRequest request;
+		private final String couponCode;
+		private final Coupon coupon;
+
+		private BulkCouponRow(long lineNumber, CreateCouponRequest request, String couponCode, Coupon coupon) {
+			this.lineNumber = lineNumber;
+			this.request = request;
+			this.couponCode = couponCode;
+			this.coupon = coupon;
+		}
+	}
+
+	private static final class BulkImportResult {
+
+		private long received;
+		private long created;
+		private long failed;
+		private final List<BulkCreateCouponsResponse.BulkCouponError> errors = new ArrayList<>();
+
+		private void rowFailed(long lineNumber, String message) {
+			failed++;
+			if (errors.size() < BulkCreateCouponsResponse.MAX_REPORTED_ERRORS) {
+				errors.add(new BulkCreateCouponsResponse.BulkCouponError(lineNumber, message));
+			}
+		}
+	}
 }
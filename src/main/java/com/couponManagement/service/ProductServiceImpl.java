@@ -2,6 +2,7 @@ package com.couponManagement.service;
 
 import com.couponManagement.dto.CreateProductRequest;
 import com.couponManagement.dto.ProductDto;
+import com.couponManagement.engine.ProductPriceCache;
 import com.couponManagement.entity.Product;
 import com.couponManagement.exception.CouponNotFoundException;
 import com.couponManagement.repository.ProductRepository;
@@ -18,10 +19,12 @@ import java.util.stream.Collectors;
 public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductPriceCache productPriceCache;
 
     @Autowired
-    public ProductServiceImpl(ProductRepository productRepository) {
+    public ProductServiceImpl(ProductRepository productRepository, ProductPriceCache productPriceCache) {
         this.productRepository = productRepository;
+        this.productPriceCache = productPriceCache;
     }
 
     @Override
@@ -33,6 +36,8 @@ public class ProductServiceImpl implements ProductService {
         product.setCategory(request.getCategory());
 
         product = productRepository.save(product);
+        // A lookup before the product existed may have cached it as unknown
+        productPriceCache.evictAfterCommit(product.getId());
         return convertToDto(product);
     }
 
@@ -63,6 +68,7 @@ public class ProductServiceImpl implements ProductService {
         product.setCategory(request.getCategory());
 
         product = productRepository.save(product);
+        productPriceCache.evictAfterCommit(productId);
         return convertToDto(product);
     }
 
@@ -72,6 +78,7 @@ public class ProductServiceImpl implements ProductService {
                 .orElseThrow(() -> new CouponNotFoundException("Product not found with ID: " + productId));
 
         productRepository.delete(product);
+        productPriceCache.evictAfterCommit(productId);
     }
 
     @Override
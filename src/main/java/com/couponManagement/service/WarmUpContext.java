@@ -0,0 +1,26 @@
+package com.couponManagement.service;
+
+/**
+ * Marks the current thread as replaying warm-up traffic. The coupon service
+ * and evaluation meters skip calls made while it is set, so warm-up rounds do
+ * not show up as client latency.
+ */
+public final class WarmUpContext {
+
+	private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+	private WarmUpContext() {
+	}
+
+	public static boolean isActive() {
+		return ACTIVE.get() != null;
+	}
+
+	static void enter() {
+		ACTIVE.set(Boolean.TRUE);
+	}
+
+	static void exit() {
+		ACTIVE.remove();
+	}
+}
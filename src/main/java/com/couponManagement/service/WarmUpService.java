@@ -0,0 +1,9 @@
+package com.couponManagement.service;
+
+import com.couponManagement.dto.WarmUpReport;
+
+public interface WarmUpService {
+
+	WarmUpReport warmUp();
+	WarmUpReport getReport();
+}
@@ -0,0 +1,278 @@
+package com.couponManagement.service;
+
+import com.couponManagement.VO.ResultVO;
+import com.couponManagement.constants.ApiResponseCode;
+import com.couponManagement.dto.ApplicableCouponsResponse;
+import com.couponManagement.dto.ApplyCouponResponse;
+import com.couponManagement.dto.CartDto;
+import com.couponManagement.dto.CartItemDto;
+import com.couponManagement.dto.WarmUpReport;
+import com.couponManagement.dto.WarmUpReport.Latency;
+import com.couponManagement.engine.ApplicableCouponsCache;
+import com.couponManagement.engine.BxGyRule;
+import com.couponManagement.engine.CouponCatalog;
+import com.couponManagement.engine.CouponRule;
+import com.couponManagement.engine.ProductWiseRule;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a cart corpus through the applicable-coupons and apply-coupon paths,
+ * including the proxies, transactions and JSON serialization a request goes
+ * through, until the JIT stops compiling or the time limit is reached.
+ * <p>
+ * The corpus is read from {@code coupon.warmup.corpus-file} (NDJSON, one cart
+ * per line) or, without one, generated from the products the active coupons
+ * refer to. The result cache is cleared before every round so each round
+ * evaluates every cart, and once more at the end so warm-up carts do not
+ * occupy it. A round counts as stable when the JIT spent at most
+ * {@code coupon.warmup.max-compilation-percent} of it compiling; on JVMs that
+ * do not report compilation time, when its mean latency is within 10% of the
+ * previous round's.
+ */
+@Service
+public class WarmUpServiceImpl implements WarmUpService {
+
+	private static final Logger log = LoggerFactory.getLogger(WarmUpServiceImpl.class);
+
+	// Fixed so every node warms up on the same synthetic carts
+	private static final long SYNTHETIC_SEED = 42;
+	private static final int MAX_SYNTHETIC_ITEMS = 6;
+	// Bounds the product ids collected from a large catalog
+	private static final int MAX_PRODUCT_POOL = 4096;
+	private static final double LATENCY_TOLERANCE = 0.1;
+
+	private final CouponService couponService;
+	private final CouponCatalog couponCatalog;
+	private final ApplicableCouponsCache applicableCouponsCache;
+	private final ObjectMapper objectMapper;
+	private final boolean enabled;
+	private final long timeoutMillis;
+	private final String corpusFile;
+	private final int maxCarts;
+	private final int minRounds;
+	private final int stableRounds;
+	private final int maxCompilationPercent;
+	private volatile WarmUpReport report;
+
+	@Autowired
+	public WarmUpServiceImpl(CouponService couponService, CouponCatalog couponCatalog,
+			ApplicableCouponsCache applicableCouponsCache, ObjectMapper objectMapper,
+			@Value("${coupon.warmup.enabled:false}") boolean enabled,
+			@Value("${coupon.warmup.timeout-ms:60000}") long timeoutMillis,
+			@Value("${coupon.warmup.corpus-file:}") String corpusFile,
+			@Value("${coupon.warmup.carts:256}") int maxCarts,
+			@Value("${coupon.warmup.min-rounds:5}") int minRounds,
+			@Value("${coupon.warmup.stable-rounds:3}") int stableRounds,
+			@Value("${coupon.warmup.max-compilation-percent:2}") int maxCompilationPercent) {
+		this.couponService = couponService;
+		this.couponCatalog = couponCatalog;
+		this.applicableCouponsCache = applicableCouponsCache;
+		this.objectMapper = objectMapper;
+		this.enabled = enabled;
+		this.timeoutMillis = timeoutMillis;
+		this.corpusFile = corpusFile;
+		this.maxCarts = Math.max(1, maxCarts);
+		this.minRounds = Math.max(1, minRounds);
+		this.stableRounds = Math.max(1, stableRounds);
+		this.maxCompilationPercent = maxCompilationPercent;
+		this.report = new WarmUpReport(enabled ? WarmUpReport.RUNNING : WarmUpReport.DISABLED);
+	}
+
+	@Override
+	public WarmUpReport getReport() {
+		return report;
+	}
+
+	@Override
+	public WarmUpReport warmUp() {
+		if (!enabled) {
+			return report;
+		}
+		long startNanos = System.nanoTime();
+		long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+		boolean compilationTracked = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+		long compilationStart = compilationTracked ? compiler.getTotalCompilationTime() : 0;
+
+		String status = WarmUpReport.TIMED_OUT;
+		List<CartDto> carts = new ArrayList<>();
+		int rounds = 0;
+		long requests = 0;
+		long errors = 0;
+		Latency firstRound = null;
+		Latency lastRound = null;
+		WarmUpContext.enter();
+		try {
+			carts = loadCorpus();
+			long[] latencies = new long[carts.size()];
+			int consecutiveStable = 0;
+			double previousMean = -1;
+			while (System.nanoTime() < deadline) {
+				applicableCouponsCache.clear();
+				long compilationBefore = compilationTracked ? compiler.getTotalCompilationTime() : 0;
+				long roundStart = System.nanoTime();
+				int completed = 0;
+				while (completed < carts.size() && System.nanoTime() < deadline) {
+					long callStart = System.nanoTime();
+					if (!replay(carts.get(completed))) {
+						errors++;
+					}
+					latencies[completed++] = System.nanoTime() - callStart;
+				}
+				requests += completed;
+				if (completed < carts.size()) {
+					break;
+				}
+				rounds++;
+				long roundNanos = System.nanoTime() - roundStart;
+				lastRound = summarize(latencies);
+				if (firstRound == null) {
+					firstRound = lastRound;
+				}
+
+				double mean = (double) roundNanos / carts.size();
+				boolean stable = compilationTracked
+						? (compiler.getTotalCompilationTime() - compilationBefore) * 100
+								<= TimeUnit.NANOSECONDS.toMillis(roundNanos) * maxCompilationPercent
+						: previousMean >= 0 && Math.abs(mean - previousMean) <= previousMean * LATENCY_TOLERANCE;
+				previousMean = mean;
+				consecutiveStable = stable ? consecutiveStable + 1 : 0;
+				if (rounds >= minRounds && consecutiveStable >= stableRounds) {
+					status = WarmUpReport.STABLE;
+					break;
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			// Serving cold is better than not serving
+			log.warn("Warm-up failed", e);
+			status = WarmUpReport.FAILED;
+		} finally {
+			WarmUpContext.exit();
+			applicableCouponsCache.clear();
+		}
+
+		long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+		long compilationMillis = compilationTracked ? compiler.getTotalCompilationTime() - compilationStart : -1;
+		report = new WarmUpReport(status, carts.size(), rounds, requests, errors, durationMillis, compilationMillis,
+				firstRound, lastRound);
+		log.info("Warm-up {} after {} rounds of {} carts ({} requests, {} errors) in {} ms, {} ms compiling; "
+				+ "p99 {} us in the first round, {} us in the last", status, rounds, carts.size(), requests, errors,
+				durationMillis, compilationMillis, firstRound != null ? firstRound.getP99Micros() : -1,
+				lastRound != null ? lastRound.getP99Micros() : -1);
+		return report;
+	}
+
+	/**
+	 * Runs one cart through the same calls a client makes: applicable coupons,
+	 * then applying the first of them.
+	 */
+	private boolean replay(CartDto cart) {
+		try {
+			ApplicableCouponsResponse applicable = couponService.getApplicableCoupons(cart);
+			objectMapper.writeValueAsBytes(new ResultVO(ApiResponseCode.SUCCESS,
+					"Applicable coupons retrieved successfully", applicable));
+			if (!applicable.getApplicableCoupons().isEmpty()) {
+				// Applicable coupons are listed by code
+				String couponCode = applicable.getApplicableCoupons().get(0).getCouponId();
+				Optional<ApplyCouponResponse> applied = couponService.applyCouponByCode(couponCode, cart);
+				objectMapper.writeValueAsBytes(new ResultVO(ApiResponseCode.SUCCESS, "Coupon applied successfully",
+						applied.orElse(null)));
+			}
+			return true;
+		} catch (JsonProcessingException | RuntimeException e) {
+			return false;
+		}
+	}
+
+	private List<CartDto> loadCorpus() throws IOException {
+		List<CartDto> carts = new ArrayList<>();
+		if (StringUtils.hasText(corpusFile)) {
+			try (BufferedReader reader = Files.newBufferedReader(Paths.get(corpusFile.trim()), StandardCharsets.UTF_8)) {
+				String line;
+				while (carts.size() < maxCarts && (line = reader.readLine()) != null) {
+					if (line.trim().isEmpty()) {
+						continue;
+					}
+					CartDto cart = objectMapper.readValue(line, CartDto.class);
+					if (cart.getItems() != null && !cart.getItems().isEmpty()) {
+						carts.add(cart);
+					}
+				}
+			}
+		}
+		return carts.isEmpty() ? syntheticCarts() : carts;
+	}
+
+	/**
+	 * Carts mixing products the active coupons refer to with arbitrary ones, in
+	 * varied quantities and prices, so every rule type is evaluated both where
+	 * it applies and where it does not.
+	 */
+	private List<CartDto> syntheticCarts() {
+		List<Long> productIds = new ArrayList<>();
+		for (CouponRule rule : couponCatalog.snapshot().getRules()) {
+			if (productIds.size() >= MAX_PRODUCT_POOL) {
+				break;
+			}
+			if (rule instanceof ProductWiseRule) {
+				productIds.add(((ProductWiseRule) rule).getProductId());
+			} else if (rule instanceof BxGyRule) {
+				BxGyRule bxGy = (BxGyRule) rule;
+				for (int i = 0; i < bxGy.getBuyCount(); i++) {
+					productIds.add(bxGy.getBuyProductId(i));
+				}
+				for (int i = 0; i < bxGy.getGetCount(); i++) {
+					productIds.add(bxGy.getGetProductId(i));
+				}
+			}
+		}
+
+		Random random = new Random(SYNTHETIC_SEED);
+		List<CartDto> carts = new ArrayList<>(maxCarts);
+		for (int i = 0; i < maxCarts; i++) {
+			CartItemDto[] items = new CartItemDto[1 + random.nextInt(MAX_SYNTHETIC_ITEMS)];
+			for (int j = 0; j < items.length; j++) {
+				long productId = !productIds.isEmpty() && random.nextBoolean()
+						? productIds.get(random.nextInt(productIds.size()))
+						: 1 + random.nextInt(1000);
+				items[j] = new CartItemDto(Long.toString(productId), 1 + random.nextInt(5),
+						BigDecimal.valueOf(100 + random.nextInt(200000), 2));
+			}
+			carts.add(new CartDto(Arrays.asList(items)));
+		}
+		return carts;
+	}
+
+	private static Latency summarize(long[] latencies) {
+		long[] sorted = latencies.clone();
+		Arrays.sort(sorted);
+		return new Latency(micros(sorted[(sorted.length - 1) / 2]),
+				micros(sorted[(int) Math.ceil(sorted.length * 0.99) - 1]), micros(sorted[sorted.length - 1]));
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
@@ -1,15 +1,27 @@
 package com.couponManagement;
 
+import com.couponManagement.service.CacheStatisticsService;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
 @ActiveProfiles("test")
 @SpringBootTest
 class ApplicationTests {
 
+	@Autowired
+	private CacheStatisticsService cacheStatisticsService;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void cacheStatisticsAreOptIn() {
+		assertFalse(cacheStatisticsService.getCacheStatistics().isStatisticsEnabled());
+	}
+
 }
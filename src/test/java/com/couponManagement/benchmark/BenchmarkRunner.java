@@ -0,0 +1,47 @@
+package com.couponManagement.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Runs the benchmarks in this package with the GC profiler, so allocation per
+ * operation is reported next to the timings, and writes the results as JSON
+ * to {@code target/jmh/<label>.json}. The label is the
+ * {@code benchmark.label} system property, e.g. the commit being measured,
+ * or a timestamp. Other JMH command-line options can be passed as arguments,
+ * for example {@code -p catalogSize=10000}, or
+ * {@code CouponServiceBenchmark.getApplicableCoupons} to select benchmarks.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        String label = System.getProperty("benchmark.label",
+            LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        File results = new File("target/jmh", label + ".json");
+        results.getParentFile().mkdirs();
+
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(BenchmarkRunner.class.getPackage().getName() + "\\..*Benchmark");
+        }
+        Options options = builder
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(results.getPath())
+            .parent(commandLine)
+            .build();
+        new Runner(options).run();
+        System.out.println("Results written to " + results.getAbsolutePath());
+    }
+}
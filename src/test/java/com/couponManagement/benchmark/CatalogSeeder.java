@@ -0,0 +1,130 @@
+package com.couponManagement.benchmark;
+
+import com.couponManagement.constants.CouponType;
+import com.couponManagement.dto.CartDto;
+import com.couponManagement.dto.CartItemDto;
+import com.couponManagement.engine.BxGyRule;
+import com.couponManagement.engine.CartWiseRule;
+import com.couponManagement.engine.CouponCatalog;
+import com.couponManagement.engine.CouponRule;
+import com.couponManagement.engine.ProductWiseRule;
+import com.couponManagement.engine.RuleCodec;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Fills a database with products and a catalog of active coupons of every
+ * type, quickly enough for a million coupons per benchmark trial.
+ * <p>
+ * Coupons are written straight to the {@code coupons} table with their rule
+ * encoding, in JDBC batches, and have no detail rows: the compact catalog load
+ * needs nothing else, but they cannot be read back through the coupon
+ * listing endpoints. Coupons that must be, create through the service. All
+ * data is derived from a fixed seed, so runs compare like with like.
+ */
+public class CatalogSeeder {
+
+    public static final int PRODUCT_COUNT = 10000;
+
+    // Far above the sequence-generated ids of coupons created through the service
+    private static final long FIRST_SEEDED_ID = 1_000_000_000L;
+    private static final int BATCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random;
+    private final long[] pricesPaise = new long[PRODUCT_COUNT + 1];
+
+    public CatalogSeeder(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Inserts {@link #PRODUCT_COUNT} products, which get ids 1 to
+     * {@code PRODUCT_COUNT} in an empty database.
+     */
+    public void seedProducts() {
+        String createdAt = LocalDateTime.now().toString();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int productId = 1; productId <= PRODUCT_COUNT; productId++) {
+            pricesPaise[productId] = 100 + random.nextInt(500000);
+            batch.add(new Object[] {"Product " + productId, BigDecimal.valueOf(pricesPaise[productId], 2), createdAt});
+            if (batch.size() == BATCH_SIZE || productId == PRODUCT_COUNT) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (name, price, created_at) VALUES (?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Inserts {@code count} active coupons, a third of each type, with BxGy
+     * buy lists of {@code bxGyProducts} entries, then reloads the catalog.
+     */
+    public void seedCoupons(int count, int bxGyProducts, CouponCatalog couponCatalog) {
+        String createdAt = LocalDateTime.now().toString();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            long id = FIRST_SEEDED_ID + i;
+            CouponRule rule = randomRule(id, "SEED-" + id, CouponType.values()[i % 3], bxGyProducts);
+            batch.add(new Object[] {id, rule.getCouponCode(), rule.getCouponType().name(), true,
+                    RuleCodec.encode(rule), createdAt});
+            if (batch.size() == BATCH_SIZE || i == count - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO coupons (id, coupon_code, coupon_type, is_active, rule_encoding, "
+                        + "created_at) VALUES (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        couponCatalog.refresh();
+    }
+
+    /**
+     * A cart of {@code lines} distinct products at their catalog prices. The
+     * first line is {@code firstProductId} with quantity 2.
+     */
+    public CartDto cart(int lines, long firstProductId) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        productIds.add(firstProductId);
+        while (productIds.size() < lines) {
+            productIds.add(randomProductId());
+        }
+        List<CartItemDto> items = new ArrayList<>(lines);
+        for (long productId : productIds) {
+            int quantity = items.isEmpty() ? 2 : 1 + random.nextInt(3);
+            items.add(new CartItemDto(Long.toString(productId), quantity, price(productId)));
+        }
+        return new CartDto(items);
+    }
+
+    public BigDecimal price(long productId) {
+        return BigDecimal.valueOf(pricesPaise[(int) productId], 2);
+    }
+
+    public long randomProductId() {
+        return 1 + random.nextInt(PRODUCT_COUNT);
+    }
+
+    private CouponRule randomRule(long id, String code, CouponType type, int bxGyProducts) {
+        switch (type) {
+        case CART_WISE:
+            return new CartWiseRule(id, code, 10000 + random.nextInt(5000000), 500 + random.nextInt(2500));
+        case PRODUCT_WISE:
+            return new ProductWiseRule(id, code, randomProductId(), 500 + random.nextInt(2500));
+        default:
+            long[] buyProductIds = new long[bxGyProducts];
+            int[] buyQuantities = new int[bxGyProducts];
+            for (int i = 0; i < bxGyProducts; i++) {
+                buyProductIds[i] = randomProductId();
+                buyQuantities[i] = 1 + random.nextInt(2);
+            }
+            return new BxGyRule(id, code, buyProductIds, buyQuantities, new long[] {randomProductId()}, new int[] {1},
+                    1 + random.nextInt(3));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.couponManagement.benchmark;
+
+import com.couponManagement.Application;
+import com.couponManagement.VO.ResultVO;
+import com.couponManagement.constants.ApiResponseCode;
+import com.couponManagement.dto.ApplicableCouponsResponse;
+import com.couponManagement.dto.ApplyCouponResponse;
+import com.couponManagement.dto.BxGyCouponRequest;
+import com.couponManagement.dto.CartDto;
+import com.couponManagement.dto.CartItemDto;
+import com.couponManagement.dto.CartWiseCouponRequest;
+import com.couponManagement.dto.CouponDto;
+import com.couponManagement.dto.CreateCouponRequest;
+import com.couponManagement.dto.ProductWiseCouponRequest;
+import com.couponManagement.engine.CouponCatalog;
+import com.couponManagement.service.CouponService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Measures the coupon service as the controllers call it, through its
+ * transactional proxy, against an in-memory H2 database seeded by
+ * {@link CatalogSeeder}. The result cache is off, so every call evaluates.
+ * <p>
+ * Each trial starts its own application context; with the full parameter
+ * grid that is slow, so narrow it with {@code -p}, e.g.
+ * {@code -p catalogSize=10000 -p cartSize=10}. Run through
+ * {@link BenchmarkRunner}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CouponServiceBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int catalogSize;
+
+    @Param({"1", "10", "100", "1000"})
+    public int cartSize;
+
+    // Buy-list length of the seeded BxGy coupons and of the one applied
+    @Param({"1", "4", "16"})
+    public int bxGyProducts;
+
+    private ConfigurableApplicationContext context;
+    private CouponService couponService;
+    private ObjectMapper objectMapper;
+    private CartDto cart;
+    private Long cartWiseId;
+    private Long productWiseId;
+    private Long bxGyId;
+    private ApplicableCouponsResponse applicableResponse;
+    private ApplyCouponResponse applyResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "coupon.result-cache.maximum-size=0",
+                        "coupon.catalog.change-poll-interval-ms=0")
+                .run();
+        couponService = context.getBean(CouponService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        CatalogSeeder seeder = new CatalogSeeder(context.getBean(JdbcTemplate.class), 42);
+        seeder.seedProducts();
+        // Minus the three coupons applied below
+        seeder.seedCoupons(Math.max(0, catalogSize - 3), bxGyProducts, context.getBean(CouponCatalog.class));
+
+        cart = seeder.cart(Math.max(cartSize, 1), seeder.randomProductId());
+        List<CartItemDto> items = cart.getItems();
+        long firstProductId = Long.parseLong(items.get(0).getProductId());
+        cartWiseId = createCoupon("cart_wise", request -> request.setCartWiseDetails(
+                new CartWiseCouponRequest(BigDecimal.ONE, BigDecimal.TEN)));
+        productWiseId = createCoupon("product_wise", request -> request.setProductWiseDetails(
+                new ProductWiseCouponRequest(firstProductId, BigDecimal.TEN)));
+        // Buys whatever of the cart's lines fit the list, gets the first line free
+        List<BxGyCouponRequest.BuyGetProduct> buyProducts = new ArrayList<>();
+        for (int i = 0; i < bxGyProducts && i < items.size(); i++) {
+            buyProducts.add(new BxGyCouponRequest.BuyGetProduct(Long.parseLong(items.get(i).getProductId()), 1));
+        }
+        bxGyId = createCoupon("bxgy", request -> request.setBxGyDetails(new BxGyCouponRequest(buyProducts,
+                Collections.singletonList(new BxGyCouponRequest.BuyGetProduct(firstProductId, 1)), 1)));
+
+        applicableResponse = couponService.getApplicableCoupons(cart);
+        applyResponse = couponService.applyCoupon(bxGyId, cart);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ApplicableCouponsResponse getApplicableCoupons() {
+        return couponService.getApplicableCoupons(cart);
+    }
+
+    @Benchmark
+    public ApplyCouponResponse applyCartWiseCoupon() {
+        return couponService.applyCoupon(cartWiseId, cart);
+    }
+
+    @Benchmark
+    public ApplyCouponResponse applyProductWiseCoupon() {
+        return couponService.applyCoupon(productWiseId, cart);
+    }
+
+    @Benchmark
+    public ApplyCouponResponse applyBxGyCoupon() {
+        return couponService.applyCoupon(bxGyId, cart);
+    }
+
+    /**
+     * convertToDto is private; this is its only caller that does little else,
+     * one primary-key query with the details served from the second-level
+     * cache.
+     */
+    @Benchmark
+    public CouponDto getBxGyCouponById() {
+        return couponService.getCouponById(bxGyId);
+    }
+
+    @Benchmark
+    public byte[] serializeApplicableCoupons() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new ResultVO(ApiResponseCode.SUCCESS,
+                "Applicable coupons retrieved successfully", applicableResponse));
+    }
+
+    @Benchmark
+    public byte[] serializeAppliedCart() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new ResultVO(ApiResponseCode.SUCCESS, "Coupon applied successfully",
+                applyResponse));
+    }
+
+    private Long createCoupon(String type, Consumer<CreateCouponRequest> details) {
+        CreateCouponRequest request = new CreateCouponRequest();
+        request.setType(type);
+        details.accept(request);
+        return couponService.createCoupon(request).getId();
+    }
+}
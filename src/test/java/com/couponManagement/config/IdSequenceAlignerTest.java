@@ -0,0 +1,70 @@
+package com.couponManagement.config;
+
+import com.couponManagement.dto.BulkCreateCouponsResponse;
+import com.couponManagement.dto.CartWiseCouponRequest;
+import com.couponManagement.dto.CouponDto;
+import com.couponManagement.dto.CreateCouponRequest;
+import com.couponManagement.service.CouponService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rows written before the sequences existed, as IDENTITY would have left
+ * them, sit right where a fresh sequence starts handing out ids.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:idsequences;DB_CLOSE_DELAY=-1",
+    "coupon.catalog.change-poll-interval-ms=0"
+})
+class IdSequenceAlignerTest {
+
+    private static final long EXISTING_ID = 1000;
+
+    @Autowired
+    private IdSequenceAligner idSequenceAligner;
+
+    @Autowired
+    private CouponService couponService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void testCreatesAfterExistingIdsOnceAligned() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (long id : new long[] {1, EXISTING_ID}) {
+            jdbcTemplate.update("INSERT INTO coupons (id, coupon_code, coupon_type, is_active, created_at) "
+                    + "VALUES (?, ?, 'CART_WISE', FALSE, CURRENT_TIMESTAMP)", id, "LEGACY" + id);
+            jdbcTemplate.update("INSERT INTO cart_wise_coupons (id, coupon_id, threshold, discount) "
+                    + "VALUES (?, ?, 100, 10)", id, id);
+        }
+        idSequenceAligner.align();
+
+        CreateCouponRequest request = new CreateCouponRequest("cart_wise");
+        request.setCartWiseDetails(new CartWiseCouponRequest(BigDecimal.valueOf(100), BigDecimal.TEN));
+        CouponDto coupon = couponService.createCoupon(request);
+        assertTrue(coupon.getId() > EXISTING_ID);
+
+        String row = "{\"type\":\"cart_wise\",\"cartWiseDetails\":{\"threshold\":100,\"discount\":10}}\n";
+        BulkCreateCouponsResponse response = couponService.createCouponsBulk(
+                new ByteArrayInputStream((row + row + row).getBytes(StandardCharsets.UTF_8)));
+        assertEquals(3, response.getCreated());
+        assertEquals(0, response.getFailed());
+
+        // The detail tables share their own sequence
+        assertEquals(Long.valueOf(4), jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart_wise_coupons WHERE id > ?", Long.class, EXISTING_ID));
+    }
+}
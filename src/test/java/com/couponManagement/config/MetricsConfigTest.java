@@ -0,0 +1,119 @@
+package com.couponManagement.config;
+
+import com.couponManagement.dto.BatchApplicableCouponsRequest;
+import com.couponManagement.dto.BxGyCouponRequest;
+import com.couponManagement.dto.CartDto;
+import com.couponManagement.dto.CartItemDto;
+import com.couponManagement.dto.CartWiseCouponRequest;
+import com.couponManagement.dto.CouponDto;
+import com.couponManagement.dto.CreateCouponRequest;
+import com.couponManagement.dto.CreateProductRequest;
+import com.couponManagement.service.CouponService;
+import com.couponManagement.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that endpoint, service and per-type evaluation meters reach the
+ * Prometheus endpoint with their histogram buckets. One test, so the exact
+ * counts are not disturbed by another's requests.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1",
+    "management.endpoints.web.exposure.include=prometheus"
+})
+class MetricsConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CouponService couponService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testPrometheusEndpointExposesCouponMeters() throws Exception {
+        CreateCouponRequest request = new CreateCouponRequest("cart_wise");
+        request.setCartWiseDetails(new CartWiseCouponRequest(BigDecimal.valueOf(100), BigDecimal.TEN));
+        CouponDto coupon = couponService.createCoupon(request);
+
+        CartDto cart = new CartDto(Collections.singletonList(new CartItemDto("1", 2, BigDecimal.valueOf(150))));
+        String cartJson = objectMapper.writeValueAsString(cart);
+        mockMvc.perform(post("/api/applicableCoupons").contentType(MediaType.APPLICATION_JSON).content(cartJson))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/applyCoupon/" + coupon.getId())
+                .contentType(MediaType.APPLICATION_JSON).content(cartJson))
+                .andExpect(status().isOk());
+
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(metrics.contains("uri=\"/api/applicableCoupons\""));
+        assertTrue(metrics.contains("coupon_service_seconds_bucket{exception=\"none\",method=\"getApplicableCoupons\""));
+        assertTrue(metrics.contains("coupon_service_repository_calls_count{method=\"createCoupon\",} 1.0"));
+        assertFalse(metrics.contains("coupon_service_repository_calls_sum{method=\"createCoupon\",} 0.0"));
+        // One candidate evaluated, and applicable, by each of the two requests
+        assertTrue(metrics.contains("coupon_evaluation_seconds_count{type=\"cart_wise\",} 2.0"));
+        assertTrue(metrics.contains("coupon_evaluation_candidates_coupons_sum{type=\"cart_wise\",} 2.0"));
+        assertTrue(metrics.contains("coupon_evaluation_applicable_coupons_sum{type=\"cart_wise\",} 2.0"));
+
+        // Batch carts are evaluated on pool threads, whose repository calls still count
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            productIds.add(productService.createProduct(
+                    new CreateProductRequest("Product " + i, BigDecimal.valueOf(100))).getId());
+        }
+        CreateCouponRequest bxGyRequest = new CreateCouponRequest("bxgy");
+        bxGyRequest.setBxGyDetails(new BxGyCouponRequest(
+                Collections.singletonList(new BxGyCouponRequest.BuyGetProduct(productIds.get(0), 1)),
+                Collections.singletonList(new BxGyCouponRequest.BuyGetProduct(productIds.get(1), 1)), 1));
+        couponService.createCoupon(bxGyRequest);
+
+        // The free product's price is not cached yet, so evaluating reads it
+        CartDto bxGyCart = new CartDto(Arrays.asList(new CartItemDto(productIds.get(0).toString(), 1, BigDecimal.TEN),
+                new CartItemDto(productIds.get(1).toString(), 1, BigDecimal.TEN)));
+        List<Object> items = new ArrayList<>();
+        couponService.getApplicableCouponsBatch(
+                new BatchApplicableCouponsRequest(Collections.singletonList(bxGyCart), null), items::add);
+        assertEquals(1, items.size());
+
+        DistributionSummary repositoryCalls = meterRegistry.find("coupon.service.repository.calls")
+                .tag("method", "getApplicableCouponsBatch").summary();
+        assertTrue(repositoryCalls.totalAmount() > 0);
+    }
+}
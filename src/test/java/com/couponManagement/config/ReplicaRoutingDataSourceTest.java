@@ -0,0 +1,86 @@
+package com.couponManagement.config;
+
+import com.couponManagement.dto.CreateProductRequest;
+import com.couponManagement.dto.ProductDto;
+import com.couponManagement.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Routes against two separate in-memory databases, so which one answered a
+ * read shows in the data it returns.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "coupon.datasource.replica.urls=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+    "coupon.datasource.replica.lag-query=SELECT lag_seconds FROM replica_lag",
+    "coupon.datasource.replica.max-staleness-ms=" + ReplicaRoutingDataSourceTest.MAX_STALENESS_MS,
+    "coupon.datasource.replica.check-interval-ms=3600000",
+    "coupon.code.node-id=1"
+})
+class ReplicaRoutingDataSourceTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+    static final long MAX_STALENESS_MS = 300;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Test
+    void testReadOnlyTransactionsUseReplicaUntilItLags() throws InterruptedException {
+        // No schema on the replica yet, so the startup check kept it out of rotation
+        assertFalse(replicaRoutingDataSource.isReplicaAvailable(0));
+
+        JdbcTemplate primary = new JdbcTemplate(dataSource);
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        for (String statement : primary.queryForList("SCRIPT NODATA", String.class)) {
+            replica.execute(statement);
+        }
+        replica.execute("CREATE TABLE replica_lag (lag_seconds INT)");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+        replica.update("INSERT INTO products (name, price, created_at) VALUES ('Replica Only', 10.00, 'now')");
+        replicaRoutingDataSource.checkReplicas();
+        assertTrue(replicaRoutingDataSource.isReplicaAvailable(0));
+
+        assertEquals(Collections.singletonList("Replica Only"), productNames());
+
+        // Writes go to the primary, and reads right after them too
+        productService.createProduct(new CreateProductRequest("Primary Only", new BigDecimal("20.00")));
+        assertEquals(Collections.singletonList("Primary Only"), productNames());
+
+        Thread.sleep(MAX_STALENESS_MS + 50);
+        assertEquals(Collections.singletonList("Replica Only"), productNames());
+
+        // A replica lagging more than the allowed staleness is taken out of rotation
+        replica.update("UPDATE replica_lag SET lag_seconds = 60");
+        replicaRoutingDataSource.checkReplicas();
+        assertFalse(replicaRoutingDataSource.isReplicaAvailable(0));
+        assertEquals(Collections.singletonList("Primary Only"), productNames());
+    }
+
+    private List<String> productNames() {
+        return productService.getAllProducts().stream().map(ProductDto::getName).collect(Collectors.toList());
+    }
+}
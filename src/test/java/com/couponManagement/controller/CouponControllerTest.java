@@ -2,6 +2,7 @@ package com.couponManagement.controller;
 
 import com.couponManagement.VO.ResultVO;
 import com.couponManagement.dto.*;
+import com.couponManagement.engine.CouponCodeFilter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,14 +11,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebM
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -28,6 +37,9 @@ class CouponControllerTest {
     @Autowired
     private WebApplicationContext webApplicationContext;
 
+    @Autowired
+    private CouponCodeFilter couponCodeFilter;
+
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
 
@@ -161,6 +173,235 @@ class CouponControllerTest {
             "Product-wise discount should be 20% of 300 = 60.0");
     }
 
+    @Test
+    void testApplicableCouponsMergesDuplicateLines() throws Exception {
+        CreateCouponRequest productWiseRequest = new CreateCouponRequest();
+        productWiseRequest.setType("product_wise");
+
+        ProductWiseCouponRequest productWiseDetails = new ProductWiseCouponRequest();
+        productWiseDetails.setProductId(987655L);
+        productWiseDetails.setDiscount(BigDecimal.valueOf(10.0));
+        productWiseRequest.setProductWiseDetails(productWiseDetails);
+        CouponDto coupon = createCoupon(productWiseRequest);
+
+        // Two lines for the same product and one non-catalog product id
+        String cartJson = objectMapper.writeValueAsString(new CartDto(Arrays.asList(
+            new CartItemDto("987655", 1, BigDecimal.valueOf(100.0)),
+            new CartItemDto("987655", 2, BigDecimal.valueOf(100.0)),
+            new CartItemDto("SKU-X", 1, BigDecimal.valueOf(50.0))
+        )));
+
+        // 10% of the merged 3 * 100 = 30.0
+        mockMvc.perform(post("/api/applicableCoupons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cartJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.applicableCoupons[?(@.couponId == '"
+                        + coupon.getCouponCode() + "')].discount").value(30.0));
+    }
+
+    @Test
+    void testBestApplicableCouponsWithLimit() throws Exception {
+        // A 90% product-wise coupon outranks every other coupon for this cart
+        CreateCouponRequest productWiseRequest = new CreateCouponRequest();
+        productWiseRequest.setType("product_wise");
+
+        ProductWiseCouponRequest productWiseDetails = new ProductWiseCouponRequest();
+        productWiseDetails.setProductId(987654L);
+        productWiseDetails.setDiscount(BigDecimal.valueOf(90.0));
+        productWiseRequest.setProductWiseDetails(productWiseDetails);
+        CouponDto bestCoupon = createCoupon(productWiseRequest);
+
+        String cartJson = objectMapper.writeValueAsString(new CartDto(Arrays.asList(
+            new CartItemDto("987654", 1, BigDecimal.valueOf(1000.0))
+        )));
+
+        mockMvc.perform(post("/api/applicableCoupons")
+                .param("limit", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cartJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(0))
+                .andExpect(jsonPath("$.result.applicableCoupons.length()").value(1))
+                .andExpect(jsonPath("$.result.applicableCoupons[0].couponId").value(bestCoupon.getCouponCode()))
+                .andExpect(jsonPath("$.result.applicableCoupons[0].discount").value(900.0));
+
+        mockMvc.perform(post("/api/applicableCoupons")
+                .param("limit", "0")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cartJson))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(-1));
+        mockMvc.perform(post("/api/applicableCoupons")
+                .param("limit", Integer.toString(Integer.MAX_VALUE))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cartJson))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(-1));
+    }
+
+    @Test
+    void testApplicableCouponsBatch() throws Exception {
+        BatchApplicableCouponsRequest batchRequest = new BatchApplicableCouponsRequest(Arrays.asList(
+            new CartDto(Arrays.asList(new CartItemDto("1", 6, BigDecimal.valueOf(50.0)))),
+            // Cart value overflows the fixed-point range
+            new CartDto(Arrays.asList(new CartItemDto("1", 100, new BigDecimal("1e16"))))
+        ), null);
+
+        MvcResult asyncResult = mockMvc.perform(post("/api/applicableCoupons/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // One line per cart, in request order; a bad cart does not fail the batch
+        String[] lines = body.trim().split("\n");
+        assertEquals(2, lines.length, "Should stream one line per cart");
+
+        BatchApplicableCouponsItem first = objectMapper.readValue(lines[0], BatchApplicableCouponsItem.class);
+        assertEquals(0, first.getIndex());
+        assertNotNull(first.getApplicableCoupons(), "First cart should be evaluated");
+
+        BatchApplicableCouponsItem second = objectMapper.readValue(lines[1], BatchApplicableCouponsItem.class);
+        assertEquals(1, second.getIndex());
+        assertNotNull(second.getError(), "Second cart should report its error");
+    }
+
+    @Test
+    void testApplicableCouponsBatchRejectsEmptyBatch() throws Exception {
+        mockMvc.perform(post("/api/applicableCoupons/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                    new BatchApplicableCouponsRequest(Arrays.asList(), null))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(-1));
+    }
+
+    @Test
+    void testApplicableCouponsBatchRejectsOversizedLimit() throws Exception {
+        mockMvc.perform(post("/api/applicableCoupons/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BatchApplicableCouponsRequest(Arrays.asList(
+                    new CartDto(Arrays.asList(new CartItemDto("1", 1, BigDecimal.ONE)))), Integer.MAX_VALUE))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(-1));
+    }
+
+    @Test
+    void testApplicableCouponsBatchRejectsOversizedCart() throws Exception {
+        List<CartItemDto> items = IntStream.rangeClosed(1, BatchApplicableCouponsRequest.MAX_ITEMS_PER_CART + 1)
+            .mapToObj(i -> new CartItemDto(Integer.toString(i), 1, BigDecimal.ONE))
+            .collect(Collectors.toList());
+
+        mockMvc.perform(post("/api/applicableCoupons/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                    new BatchApplicableCouponsRequest(Arrays.asList(new CartDto(items)), null))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(-1));
+    }
+
+    @Test
+    void testApplicableCouponsBatchRejectsOversizedBody() throws Exception {
+        String batchJson = objectMapper.writeValueAsString(new BatchApplicableCouponsRequest(Arrays.asList(
+            new CartDto(Arrays.asList(new CartItemDto("1", 1, BigDecimal.ONE)))), null));
+        // Valid JSON, padded past the default 16 MiB limit
+        StringBuilder body = new StringBuilder(batchJson);
+        while (body.length() <= 16 * 1024 * 1024) {
+            body.append("                ");
+        }
+
+        mockMvc.perform(post("/api/applicableCoupons/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body.toString()))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.code").value(-1));
+    }
+
+    @Test
+    void testApplicableBxGyCoupon() throws Exception {
+        Long buyProductId = createProduct("BxGy Buy Product", BigDecimal.valueOf(40.0));
+        Long getProductId = createProduct("BxGy Get Product", BigDecimal.valueOf(15.0));
+
+        // Buy 2 of the buy product, get 1 of the get product free, up to 2 times
+        CreateCouponRequest bxGyRequest = new CreateCouponRequest();
+        bxGyRequest.setType("bxgy");
+        bxGyRequest.setBxGyDetails(new BxGyCouponRequest(
+            Arrays.asList(new BxGyCouponRequest.BuyGetProduct(buyProductId, 2)),
+            Arrays.asList(new BxGyCouponRequest.BuyGetProduct(getProductId, 1)),
+            2));
+        CouponDto bxGyCoupon = createCoupon(bxGyRequest);
+
+        // 4 buy products unlock 2 repetitions, the cart holds 3 get products
+        String qualifyingCart = objectMapper.writeValueAsString(new CartDto(Arrays.asList(
+            new CartItemDto(buyProductId.toString(), 4, BigDecimal.valueOf(40.0)),
+            new CartItemDto(getProductId.toString(), 3, BigDecimal.valueOf(15.0))
+        )));
+
+        mockMvc.perform(post("/api/applicableCoupons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(qualifyingCart))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.applicableCoupons[?(@.couponId == '"
+                        + bxGyCoupon.getCouponCode() + "')].discount").value(30.0));
+
+        // Without any buy product in the cart the coupon is never a candidate
+        String nonQualifyingCart = objectMapper.writeValueAsString(new CartDto(Arrays.asList(
+            new CartItemDto(getProductId.toString(), 3, BigDecimal.valueOf(15.0))
+        )));
+
+        mockMvc.perform(post("/api/applicableCoupons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(nonQualifyingCart))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.applicableCoupons[?(@.couponId == '"
+                        + bxGyCoupon.getCouponCode() + "')]").doesNotExist());
+    }
+
+    @Test
+    void testBxGyDiscountFollowsProductPriceUpdate() throws Exception {
+        Long buyProductId = createProduct("Price Update Buy Product", BigDecimal.valueOf(25.0));
+        Long getProductId = createProduct("Price Update Get Product", BigDecimal.valueOf(10.0));
+
+        CreateCouponRequest bxGyRequest = new CreateCouponRequest();
+        bxGyRequest.setType("bxgy");
+        bxGyRequest.setBxGyDetails(new BxGyCouponRequest(
+            Arrays.asList(new BxGyCouponRequest.BuyGetProduct(buyProductId, 1)),
+            Arrays.asList(new BxGyCouponRequest.BuyGetProduct(getProductId, 1)),
+            1));
+        CouponDto bxGyCoupon = createCoupon(bxGyRequest);
+
+        String cart = objectMapper.writeValueAsString(new CartDto(Arrays.asList(
+            new CartItemDto(buyProductId.toString(), 1, BigDecimal.valueOf(25.0)),
+            new CartItemDto(getProductId.toString(), 1, BigDecimal.valueOf(10.0))
+        )));
+        String discountPath = "$.result.applicableCoupons[?(@.couponId == '"
+            + bxGyCoupon.getCouponCode() + "')].discount";
+
+        // The first evaluation caches the get product's price
+        mockMvc.perform(post("/api/applicableCoupons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cart))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(discountPath).value(10.0));
+
+        mockMvc.perform(put("/api/products/" + getProductId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                    new CreateProductRequest("Price Update Get Product", BigDecimal.valueOf(12.0)))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/applicableCoupons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cart))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(discountPath).value(12.0));
+    }
+
     @Test
     void testUpdateCoupon() throws Exception {
         // First create a coupon
@@ -233,6 +474,223 @@ class CouponControllerTest {
                 .andExpect(jsonPath("$.message").value("Coupon deleted successfully"));
     }
 
+    @Test
+    void testDeletedCouponNoLongerApplicable() throws Exception {
+        // Create a cart-wise coupon and check it is offered for a qualifying cart
+        CreateCouponRequest createRequest = new CreateCouponRequest();
+        createRequest.setType("cart_wise");
+
+        CartWiseCouponRequest cartWiseDetails = new CartWiseCouponRequest();
+        cartWiseDetails.setThreshold(BigDecimal.valueOf(50.0));
+        cartWiseDetails.setDiscount(BigDecimal.valueOf(3.0));
+        createRequest.setCartWiseDetails(cartWiseDetails);
+
+        String createResponse = mockMvc.perform(post("/api/createCoupon")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        CouponDto createdCoupon = objectMapper.convertValue(
+            objectMapper.readValue(createResponse, ResultVO.class).getResult(), CouponDto.class);
+
+        String cartJson = objectMapper.writeValueAsString(new CartDto(Arrays.asList(
+            new CartItemDto("1", 2, BigDecimal.valueOf(40.0))
+        )));
+
+        mockMvc.perform(post("/api/applicableCoupons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cartJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.applicableCoupons[?(@.couponId == '"
+                        + createdCoupon.getCouponCode() + "')]").exists());
+
+        mockMvc.perform(delete("/api/deleteCoupon/" + createdCoupon.getId()))
+                .andExpect(status().isOk());
+
+        // The catalog snapshot must be refreshed by the delete
+        mockMvc.perform(post("/api/applicableCoupons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cartJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.applicableCoupons[?(@.couponId == '"
+                        + createdCoupon.getCouponCode() + "')]").doesNotExist());
+    }
+
+    @Test
+    void testRepeatedCartReflectsCouponUpdate() throws Exception {
+        CreateCouponRequest request = new CreateCouponRequest();
+        request.setType("product_wise");
+        request.setProductWiseDetails(new ProductWiseCouponRequest(987656L, BigDecimal.valueOf(10.0)));
+        CouponDto coupon = createCoupon(request);
+
+        String discountPath = "$.result.applicableCoupons[?(@.couponId == '"
+            + coupon.getCouponCode() + "')].discount";
+        String cart = objectMapper.writeValueAsString(new CartDto(Arrays.asList(
+            new CartItemDto("987656", 2, BigDecimal.valueOf(50.0))
+        )));
+        // The same product split over two lines is the same cart
+        String splitCart = objectMapper.writeValueAsString(new CartDto(Arrays.asList(
+            new CartItemDto("987656", 1, BigDecimal.valueOf(50.0)),
+            new CartItemDto("987656", 1, BigDecimal.valueOf(50.0))
+        )));
+
+        for (String json : Arrays.asList(cart, splitCart, cart)) {
+            mockMvc.perform(post("/api/applicableCoupons")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(json))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath(discountPath).value(10.0));
+        }
+
+        request.setProductWiseDetails(new ProductWiseCouponRequest(987656L, BigDecimal.valueOf(20.0)));
+        mockMvc.perform(put("/api/updateCoupon/" + coupon.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        // The catalog version changed, so the cached result must not be served
+        mockMvc.perform(post("/api/applicableCoupons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cart))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(discountPath).value(20.0));
+    }
+
+    @Test
+    void testApplyCouponByCode() throws Exception {
+        CreateCouponRequest request = new CreateCouponRequest();
+        request.setType("product_wise");
+        request.setProductWiseDetails(new ProductWiseCouponRequest(987657L, BigDecimal.valueOf(25.0)));
+        CouponDto coupon = createCoupon(request);
+
+        String cartJson = objectMapper.writeValueAsString(new CartDto(Arrays.asList(
+            new CartItemDto("987657", 2, BigDecimal.valueOf(40.0)),
+            new CartItemDto("3", 1, BigDecimal.valueOf(20.0))
+        )));
+
+        mockMvc.perform(post("/api/applyCouponByCode/" + coupon.getCouponCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cartJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Coupon applied successfully"))
+                .andExpect(jsonPath("$.result.totalPrice").value(100.0))
+                .andExpect(jsonPath("$.result.totalDiscount").value(20.0))
+                .andExpect(jsonPath("$.result.finalPrice").value(80.0));
+
+        mockMvc.perform(post("/api/applyCouponByCode/NO-SUCH-CODE")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cartJson))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Coupon not found with code: NO-SUCH-CODE"));
+
+        // Unknown codes are now turned away before any lookup
+        assertFalse(couponCodeFilter.mightExist("NO-SUCH-CODE"));
+
+        // Deleted coupons are deactivated, so their code still resolves
+        mockMvc.perform(delete("/api/deleteCoupon/" + coupon.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/applyCouponByCode/" + coupon.getCouponCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cartJson))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Coupon is not active"));
+    }
+
+    @Test
+    void testConcurrentCreatesGetDistinctCodes() throws Exception {
+        CreateCouponRequest request = new CreateCouponRequest();
+        request.setType("cart_wise");
+        request.setCartWiseDetails(new CartWiseCouponRequest(BigDecimal.valueOf(1000.0), BigDecimal.valueOf(1.0)));
+
+        List<String> codes = IntStream.range(0, 32).parallel().mapToObj(i -> {
+            try {
+                return createCoupon(request).getCouponCode();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).collect(Collectors.toList());
+
+        assertEquals(codes.size(), new HashSet<>(codes).size());
+    }
+
+    @Test
+    void testCreateCouponsBulk() throws Exception {
+        // More rows than one insert batch, with two bad rows and a blank line
+        CreateCouponRequest row = new CreateCouponRequest();
+        row.setType("cart_wise");
+        row.setCartWiseDetails(new CartWiseCouponRequest(BigDecimal.valueOf(10000000.0), BigDecimal.valueOf(1.0)));
+        String validRow = objectMapper.writeValueAsString(row);
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 600; i++) {
+            body.append(validRow).append('\n');
+            if (i == 99) {
+                body.append("{not json\n");
+            } else if (i == 199) {
+                body.append("{\"type\":\"free_lunch\"}\n\n");
+            }
+        }
+
+        mockMvc.perform(post("/api/createCoupons/bulk")
+                .contentType("application/x-ndjson")
+                .content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.received").value(602))
+                .andExpect(jsonPath("$.result.created").value(600))
+                .andExpect(jsonPath("$.result.failed").value(2))
+                .andExpect(jsonPath("$.result.errors[0].line").value(101))
+                .andExpect(jsonPath("$.result.errors[1].line").value(202))
+                .andExpect(jsonPath("$.result.errors[1].message").value("Coupon details are required"));
+    }
+
+    @Test
+    void testKeysetPaginationAndExport() throws Exception {
+        CreateCouponRequest request = new CreateCouponRequest();
+        request.setType("cart_wise");
+        request.setCartWiseDetails(new CartWiseCouponRequest(BigDecimal.valueOf(20000000.0), BigDecimal.valueOf(2.0)));
+        CouponDto first = createCoupon(request);
+        CouponDto second = createCoupon(request);
+
+        // Coupons are created one after another, so they are adjacent in id order
+        mockMvc.perform(get("/api/getAllCoupons")
+                .param("afterId", String.valueOf(first.getId() - 1))
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.coupons.length()").value(2))
+                .andExpect(jsonPath("$.result.coupons[0].couponCode").value(first.getCouponCode()))
+                .andExpect(jsonPath("$.result.coupons[1].couponCode").value(second.getCouponCode()))
+                .andExpect(jsonPath("$.result.nextAfterId").value(second.getId()));
+
+        mockMvc.perform(get("/api/coupons/active")
+                .param("afterId", String.valueOf(second.getId()))
+                .param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.nextAfterId").doesNotExist());
+
+        mockMvc.perform(get("/api/getAllCoupons").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/coupons/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // One coupon per line, in id order
+        long previousId = 0;
+        List<String> exportedCodes = new ArrayList<>();
+        for (String line : body.trim().split("\n")) {
+            CouponDto coupon = objectMapper.readValue(line, CouponDto.class);
+            assertTrue(coupon.getId() > previousId, "Export should be in id order");
+            previousId = coupon.getId();
+            exportedCodes.add(coupon.getCouponCode());
+        }
+        assertTrue(exportedCodes.contains(first.getCouponCode()));
+        assertTrue(exportedCodes.contains(second.getCouponCode()));
+    }
+
     @Test
     void testApplyCartWiseCoupon() throws Exception {
         // Create a cart-wise coupon: 10% discount above 100 threshold
@@ -386,4 +844,28 @@ class CouponControllerTest {
         assertEquals(BigDecimal.ZERO, item2.getDiscount(),
             "Item 2 discount should be 0 for product-wise coupon on different product");
     }
+
+    private Long createProduct(String name, BigDecimal price) throws Exception {
+        CreateProductRequest request = new CreateProductRequest(name, price);
+
+        String response = mockMvc.perform(post("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return objectMapper.convertValue(objectMapper.readValue(response, ResultVO.class).getResult(),
+            ProductDto.class).getId();
+    }
+
+    private CouponDto createCoupon(CreateCouponRequest request) throws Exception {
+        String response = mockMvc.perform(post("/api/createCoupon")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return objectMapper.convertValue(objectMapper.readValue(response, ResultVO.class).getResult(),
+            CouponDto.class);
+    }
 }
@@ -0,0 +1,75 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.dto.ApplicableCouponDto;
+import com.couponManagement.dto.CartItemDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApplicableCouponsCacheTest {
+
+    private static final CartView CART = CartView.of(Collections.singletonList(
+            new CartItemDto("1", 1, BigDecimal.TEN)));
+
+    @Test
+    void testReadEntrySurvivesTheNextSweep() {
+        ApplicableCouponsCache cache = new ApplicableCouponsCache(4);
+        for (int version = 0; version < 4; version++) {
+            cache.put(fingerprint(version), new ArrayList<>());
+        }
+        assertNotNull(cache.get(fingerprint(0)));
+
+        // Over the bound: an unread entry goes, the one just read stays
+        cache.put(fingerprint(4), new ArrayList<>());
+        assertEquals(4, cache.size());
+        assertNotNull(cache.get(fingerprint(0)));
+
+        for (int version = 5; version < 100; version++) {
+            cache.put(fingerprint(version), new ArrayList<>());
+            assertTrue(cache.size() <= 4);
+        }
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    void testConcurrentReadersAndWritersStayBounded() throws Exception {
+        ApplicableCouponsCache cache = new ApplicableCouponsCache(64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread * 10_000;
+                futures.add(executor.submit(() -> {
+                    for (int version = 0; version < 10_000; version++) {
+                        List<ApplicableCouponDto> coupons = cache.get(fingerprint(offset + version % 100));
+                        if (coupons == null) {
+                            cache.put(fingerprint(offset + version % 100), new ArrayList<>());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(cache.size() <= 64);
+        assertEquals(40_000, cache.getHitCount() + cache.getMissCount());
+    }
+
+    private static CartFingerprint fingerprint(long catalogVersion) {
+        return CartFingerprint.of(CART, catalogVersion, 0, 0);
+    }
+}
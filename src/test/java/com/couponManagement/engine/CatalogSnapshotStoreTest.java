@@ -0,0 +1,138 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.constants.CouponChangeType;
+import com.couponManagement.constants.CouponType;
+import com.couponManagement.entity.CartWiseCoupon;
+import com.couponManagement.entity.Coupon;
+import com.couponManagement.repository.CouponRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Restarts a catalog from a snapshot file written by the running one, without
+ * restarting the application: the restarted catalog and its store are built
+ * by hand on the same database.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "coupon.catalog.change-poll-interval-ms=0"
+})
+class CatalogSnapshotStoreTest {
+
+    @Autowired
+    private CouponCatalog couponCatalog;
+
+    @Autowired
+    private CouponChangeLog couponChangeLog;
+
+    @Autowired
+    private CouponCodeFilter couponCodeFilter;
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRestartServesFromFileThenCatchesUp() throws IOException {
+        Coupon written = saveCoupon();
+        Path file = directory.resolve("catalog.bin");
+        CouponCatalogSnapshot before = couponCatalog.refresh();
+        CatalogSnapshotFile.write(file, before);
+
+        Coupon missed = saveCoupon();
+        CouponCatalog restarted = new CouponCatalog(couponRepository, couponChangeLog, couponCodeFilter, transactionManager,
+            CouponCatalog.LOAD_MODE_COMPACT, 0);
+        CatalogSnapshotStore store = new CatalogSnapshotStore(restarted, couponChangeLog, file.toString(), 0);
+
+        // Served from the file without a single statement
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        store.restore();
+        assertEquals(0, statistics.getPrepareStatementCount());
+        CouponCatalogSnapshot restored = restarted.currentSnapshot();
+        assertEquals(before.size(), restored.size());
+        assertEquals(before.getChangeVersion(), restored.getChangeVersion());
+        CartWiseRule rule = (CartWiseRule) restored.getRuleByCode(written.getCouponCode());
+        assertEquals(written.getId().longValue(), rule.getId());
+        assertEquals(10000, rule.getThresholdPaise());
+        assertNull(restored.getRuleById(missed.getId()));
+
+        // Only the newer change-log entries are read
+        statistics.clear();
+        store.reconcile();
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertNotNull(restarted.currentSnapshot().getRuleById(missed.getId()));
+        assertEquals(couponChangeLog.latestVersion(), restarted.currentSnapshot().getChangeVersion());
+
+        // Written again only once the catalog has moved on
+        store.writeIfChanged();
+        assertEquals(restarted.currentSnapshot().size(), CatalogSnapshotFile.read(file).getRules().size());
+    }
+
+    @Test
+    void testDamagedFilesAreIgnored() throws IOException {
+        saveCoupon();
+        Path file = directory.resolve("catalog.bin");
+        CatalogSnapshotFile.write(file, couponCatalog.refresh());
+        assertNotNull(CatalogSnapshotFile.read(file));
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+        assertNull(CatalogSnapshotFile.read(file));
+
+        Files.write(file, new byte[] {1, 2, 3});
+        assertNull(CatalogSnapshotFile.read(file));
+        assertNull(CatalogSnapshotFile.read(directory.resolve("missing.bin")));
+
+        // The restarted catalog falls back to a full load
+        CouponCatalog restarted = new CouponCatalog(couponRepository, couponChangeLog, couponCodeFilter, transactionManager,
+            CouponCatalog.LOAD_MODE_COMPACT, 0);
+        new CatalogSnapshotStore(restarted, couponChangeLog, file.toString(), 0).restore();
+        assertNull(restarted.currentSnapshot());
+        assertEquals(couponCatalog.snapshot().size(), restarted.snapshot().size());
+    }
+
+    private Coupon saveCoupon() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Coupon coupon = new Coupon("SNAPSHOT-" + UUID.randomUUID(), CouponType.CART_WISE);
+            coupon.setCartWiseDetails(new CartWiseCoupon(new BigDecimal("100"), new BigDecimal("10")));
+            coupon.setRuleEncoding(RuleCodec.encode(coupon));
+            entityManager.persist(coupon);
+            couponChangeLog.record(coupon, CouponChangeType.CREATED);
+            return coupon;
+        });
+    }
+}
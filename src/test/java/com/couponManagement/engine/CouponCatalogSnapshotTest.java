@@ -0,0 +1,69 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.dto.CartItemDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Boundaries of the cart-wise threshold search: a rule applies from a total
+ * equal to its threshold, and rules sharing a threshold come and go together.
+ */
+class CouponCatalogSnapshotTest {
+
+    // Ids out of threshold order, so ordinals and threshold positions differ
+    private static final CouponCatalogSnapshot SNAPSHOT = new CouponCatalogSnapshot(Arrays.asList(
+            new CartWiseRule(1, "C1", 50_000, 1000),
+            new CartWiseRule(2, "C2", 10_000, 1000),
+            new CartWiseRule(3, "C3", 20_000, 1000),
+            new CartWiseRule(4, "C4", 20_000, 1000),
+            new CartWiseRule(5, "C5", 20_000, 1000)), 1);
+
+    @Test
+    void testBelowEveryThreshold() {
+        assertEquals(0, SNAPSHOT.eligibleCartWiseCount(0));
+        assertEquals(0, SNAPSHOT.eligibleCartWiseCount(9_999));
+        assertArrayEquals(new int[0], SNAPSHOT.candidateOrdinals(cart(9_999)));
+    }
+
+    @Test
+    void testTotalEqualToAThreshold() {
+        assertEquals(1, SNAPSHOT.eligibleCartWiseCount(10_000));
+        assertArrayEquals(new int[] {1}, SNAPSHOT.candidateOrdinals(cart(10_000)));
+        assertEquals(5, SNAPSHOT.eligibleCartWiseCount(50_000));
+    }
+
+    @Test
+    void testDuplicateThresholdsAreTakenTogether() {
+        assertEquals(1, SNAPSHOT.eligibleCartWiseCount(19_999));
+        assertEquals(4, SNAPSHOT.eligibleCartWiseCount(20_000));
+        assertArrayEquals(new int[] {1, 2, 3, 4}, SNAPSHOT.candidateOrdinals(cart(20_000)));
+        assertEquals(4, SNAPSHOT.eligibleCartWiseCount(49_999));
+    }
+
+    @Test
+    void testAboveEveryThreshold() {
+        assertEquals(5, SNAPSHOT.eligibleCartWiseCount(50_001));
+        assertEquals(5, SNAPSHOT.eligibleCartWiseCount(Long.MAX_VALUE));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, SNAPSHOT.candidateOrdinals(cart(1_000_000)));
+    }
+
+    @Test
+    void testWithoutCartWiseRules() {
+        CouponCatalogSnapshot empty = new CouponCatalogSnapshot(Collections.emptyList(), 1);
+        assertEquals(0, empty.eligibleCartWiseCount(Long.MAX_VALUE));
+    }
+
+    private static CartView cart(long totalPaise) {
+        // Product 999 has no product-wise or BxGy rule, so only the total matters
+        List<CartItemDto> items = Collections.singletonList(
+                new CartItemDto("999", 1, BigDecimal.valueOf(totalPaise, 2)));
+        return CartView.of(items);
+    }
+}
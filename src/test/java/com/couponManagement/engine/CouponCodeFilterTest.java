@@ -0,0 +1,110 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.constants.CouponChangeType;
+import com.couponManagement.constants.CouponType;
+import com.couponManagement.dto.CartDto;
+import com.couponManagement.dto.CartItemDto;
+import com.couponManagement.entity.CartWiseCoupon;
+import com.couponManagement.entity.Coupon;
+import com.couponManagement.exception.InvalidCouponException;
+import com.couponManagement.repository.CouponRepository;
+import com.couponManagement.service.CouponService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keeps the code filter in step with codes this node did not issue, and
+ * resizes it once it fills up.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:codefilter;DB_CLOSE_DELAY=-1",
+    "coupon.catalog.change-poll-interval-ms=0"
+})
+class CouponCodeFilterTest {
+
+    @Autowired
+    private CouponCodeFilter couponCodeFilter;
+
+    @Autowired
+    private CouponCatalog couponCatalog;
+
+    @Autowired
+    private CouponChangeLog couponChangeLog;
+
+    @Autowired
+    private CouponService couponService;
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void testCodesFromOtherNodesArriveThroughTheChangeLog() {
+        couponCatalog.snapshot();
+        String code = "OTHER-NODE-" + UUID.randomUUID();
+        // An earlier lookup that found nothing
+        couponCodeFilter.codeMissing(code);
+        assertFalse(couponCodeFilter.mightExist(code));
+
+        // Another node creates the coupon, already inactive, so the catalog
+        // will not list it and lookups have to go through the filter
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Coupon coupon = new Coupon(code, CouponType.CART_WISE);
+            coupon.setCartWiseDetails(new CartWiseCoupon(new BigDecimal("100"), new BigDecimal("10")));
+            coupon.setIsActive(false);
+            entityManager.persist(coupon);
+            couponChangeLog.record(coupon, CouponChangeType.CREATED);
+        });
+
+        couponCatalog.refreshChanges();
+
+        assertTrue(couponCodeFilter.mightExist(code));
+        CartDto cart = new CartDto(Collections.singletonList(new CartItemDto("1", 2, BigDecimal.valueOf(150))));
+        InvalidCouponException e = assertThrows(InvalidCouponException.class,
+            () -> couponService.applyCouponByCode(code, cart));
+        assertEquals("Coupon is not active", e.getMessage());
+    }
+
+    @Test
+    void testSaturatedFilterIsRebuiltLarger() {
+        CouponCodeFilter filter = new CouponCodeFilter(couponRepository, 16, 0.01, 60, 100);
+        filter.rebuild();
+        long capacity = filter.capacity();
+
+        // A bulk import of more codes than the filter was sized for, which the
+        // change log hands to the filter
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i <= capacity; i++) {
+            ndjson.append("{\"type\":\"cart_wise\",\"cartWiseDetails\":{\"threshold\":100,\"discount\":10}}\n");
+        }
+        couponService.createCouponsBulk(new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)));
+        couponRepository.findAllCouponCodes().forEach(filter::codeIssued);
+
+        filter.rebuildIfSaturated();
+
+        assertTrue(filter.capacity() > capacity);
+    }
+}
@@ -0,0 +1,81 @@
+package com.couponManagement.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Paise and basis-point results against the exact {@link BigDecimal}
+ * arithmetic they replaced, {@code amount * percent / 100}, rounded half-up
+ * to the paisa.
+ */
+class MoneyTest {
+
+    private static final String[] AMOUNTS = {
+        "0.01", "0.03", "0.05", "1.00", "1.99", "3.33", "7.77", "99.99", "100.00", "333.33", "1234.57", "99999.99"
+    };
+
+    private static final String[] PERCENTS = {
+        "0", "0.01", "0.5", "1", "12.5", "15", "33.33", "50", "66.67", "99.99", "100"
+    };
+
+    @Test
+    void testPercentOfMatchesBaselineRoundedHalfUp() {
+        for (String amount : AMOUNTS) {
+            for (String percent : PERCENTS) {
+                assertEquals(baseline(amount, percent),
+                        Money.toRupees(Money.percentOf(Money.toPaise(new BigDecimal(amount)),
+                                Money.toBasisPoints(new BigDecimal(percent)))),
+                        percent + "% of " + amount);
+            }
+        }
+    }
+
+    @Test
+    void testFractionalPaiseRoundHalfUp() {
+        // 33.33% of 1.00 is 0.3333, 66.67% is 0.6667
+        assertEquals(33, Money.percentOf(100, 3333));
+        assertEquals(67, Money.percentOf(100, 6667));
+        // Exact half paise round up: 50% of 0.01, 12.5% of 0.04, 0.5% of 1.00
+        assertEquals(1, Money.percentOf(1, 5000));
+        assertEquals(1, Money.percentOf(4, 1250));
+        assertEquals(1, Money.percentOf(100, 50));
+        // Just under a half rounds down: 0.49% of 1.00
+        assertEquals(0, Money.percentOf(100, 49));
+    }
+
+    @Test
+    void testToPaiseRoundsHalfUpAndThresholdsUp() {
+        assertEquals(1235, Money.toPaise(new BigDecimal("12.345")));
+        assertEquals(1234, Money.toPaise(new BigDecimal("12.3449")));
+        assertEquals(1235, Money.toPaise(new BigDecimal("12.341"), RoundingMode.CEILING));
+        assertEquals(new BigDecimal("12.34"), Money.toRupees(1234));
+        assertEquals(3333, Money.toBasisPoints(new BigDecimal("33.325")));
+    }
+
+    @Test
+    void testDiscountNeverExceedsCartTotal() {
+        // No explicit clamp: half-up rounding of at most 100% stays within the amount
+        for (long paise = 0; paise <= 10_000; paise++) {
+            assertEquals(paise, Money.percentOf(paise, 10_000));
+            assertTrue(Money.percentOf(paise, 9_999) <= paise);
+        }
+        assertEquals(Long.MAX_VALUE / 10_000, Money.percentOf(Long.MAX_VALUE / 10_000, 10_000));
+    }
+
+    @Test
+    void testOverflowIsAnError() {
+        assertThrows(ArithmeticException.class, () -> Money.percentOf(Long.MAX_VALUE / 100, 10_000));
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2, 3));
+    }
+
+    private static BigDecimal baseline(String amount, String percent) {
+        return new BigDecimal(amount).multiply(new BigDecimal(percent)).divide(BigDecimal.valueOf(100))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,56 @@
+package com.couponManagement.engine;
+
+import com.couponManagement.dto.CreateProductRequest;
+import com.couponManagement.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * A price changed straight in the database stands in for a write made on
+ * another node, which the local evictions never see.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:pricecache;DB_CLOSE_DELAY=-1",
+    "coupon.catalog.change-poll-interval-ms=0",
+    "coupon.price-cache.ttl-ms=" + ProductPriceCacheTest.TTL_MS
+})
+class ProductPriceCacheTest {
+
+    static final long TTL_MS = 1000;
+
+    @Autowired
+    private ProductPriceCache productPriceCache;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void testPricesChangedElsewhereExpire() throws InterruptedException {
+        long productId = productService.createProduct(
+                new CreateProductRequest("Remote", new BigDecimal("10.00"))).getId();
+        assertEquals(1000, productPriceCache.prices(Collections.singletonList(productId)).price(productId));
+        long version = productPriceCache.version();
+
+        new JdbcTemplate(dataSource).update("UPDATE products SET price = 25.00 WHERE id = ?", productId);
+        // Still the cached price until the entry expires
+        assertEquals(1000, productPriceCache.prices(Collections.singletonList(productId)).price(productId));
+
+        Thread.sleep(TTL_MS + 100);
+        assertNotEquals(version, productPriceCache.version());
+        assertEquals(2500, productPriceCache.prices(Collections.singletonList(productId)).price(productId));
+    }
+}
@@ -0,0 +1,219 @@
+package com.couponManagement.loadtest;
+
+import com.couponManagement.benchmark.CatalogSeeder;
+import com.couponManagement.dto.BxGyCouponRequest;
+import com.couponManagement.dto.CartWiseCouponRequest;
+import com.couponManagement.dto.CreateCouponRequest;
+import com.couponManagement.dto.CreateProductRequest;
+import com.couponManagement.dto.ProductWiseCouponRequest;
+import com.couponManagement.service.CouponService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test through Tomcat, the controllers, Jackson, Hibernate
+ * and H2, driven by {@link LoadGenerator} at a constant arrival rate. Skipped
+ * unless {@code -Dloadtest=true}; tune it with {@code loadtest.rate} (requests
+ * a second, default 200), {@code loadtest.warmup-seconds} (10),
+ * {@code loadtest.duration-seconds} (30) and {@code loadtest.coupons} (1000).
+ * Reports go to {@code loadtest.report-dir} (target/loadtest) as
+ * {@code <loadtest.label>.txt} and {@code .json}:
+ * <pre>
+ * mvn test -Dtest=CouponLoadTest -Dloadtest=true -Dloadtest.rate=500
+ * </pre>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "logging.level.root=WARN"
+})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class CouponLoadTest {
+
+    private static final int CARTS = 1000;
+    private static final int APPLY_TARGETS = 20;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CouponService couponService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Queue<Long> createdProductIds = new ConcurrentLinkedQueue<>();
+
+    @Test
+    void testThroughputAndLatency() throws Exception {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 30));
+        int couponCount = Integer.getInteger("loadtest.coupons", 1000);
+        String label = System.getProperty("loadtest.label",
+            LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+
+        CatalogSeeder seeder = new CatalogSeeder(jdbcTemplate, 42);
+        seeder.seedProducts();
+        seedCoupons(seeder, couponCount);
+        List<Long> applyTargets = createApplyTargets(seeder);
+        List<byte[]> carts = new ArrayList<>(CARTS);
+        Random cartRandom = new Random(7);
+        for (int i = 0; i < CARTS; i++) {
+            carts.add(json(seeder.cart(1 + cartRandom.nextInt(20), seeder.randomProductId())));
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        LoadGenerator generator = new LoadGenerator(client)
+            .operation("applicableCoupons", 40,
+                random -> post("/api/applicableCoupons", carts.get(random.nextInt(carts.size()))))
+            .operation("applyCoupon", 25, random -> post(
+                "/api/applyCoupon/" + applyTargets.get(random.nextInt(applyTargets.size())),
+                carts.get(random.nextInt(carts.size()))))
+            .operation("getProduct", 10,
+                random -> get("/api/products/" + (1 + random.nextInt(CatalogSeeder.PRODUCT_COUNT))))
+            .operation("createProduct", 5, random -> post("/api/products", json(productRequest(random))),
+                response -> createdProductIds.add(resultId(response)))
+            // Taken off the queue while in flight so a concurrent delete cannot race it
+            .operation("updateProduct", 5, random -> {
+                Long id = createdProductIds.poll();
+                return id != null ? request("/api/products/" + id)
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(json(productRequest(random)))).build() : null;
+            }, response -> createdProductIds.add(resultId(response)))
+            .operation("deleteProduct", 3, random -> {
+                Long id = createdProductIds.poll();
+                return id != null ? request("/api/products/" + id).DELETE().build() : null;
+            })
+            .operation("listCoupons", 6,
+                random -> get("/api/getAllCoupons?limit=50&afterId=" + random.nextInt(Math.max(1, couponCount))))
+            .operation("listActiveCoupons", 6, random -> get("/api/coupons/active?limit=50"));
+
+        // Warms the JIT, pools and caches; its numbers are discarded
+        generator.run(rate, warmup, REQUEST_TIMEOUT, 1);
+        LoadResult result = generator.run(rate, duration, REQUEST_TIMEOUT, 2);
+
+        result.write(Paths.get(System.getProperty("loadtest.report-dir", "target/loadtest")), label, objectMapper);
+        System.out.print(result.toText());
+        assertTrue(result.getSent() > 0);
+    }
+
+    /**
+     * Bulk-imports a third of each coupon type, through the service so every
+     * coupon has its detail rows and can be listed.
+     */
+    private void seedCoupons(CatalogSeeder seeder, int count) {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            CreateCouponRequest request = new CreateCouponRequest();
+            switch (i % 3) {
+            case 0:
+                request.setType("cart_wise");
+                request.setCartWiseDetails(new CartWiseCouponRequest(
+                    BigDecimal.valueOf(100 + i % 50 * 100), BigDecimal.valueOf(5 + i % 20)));
+                break;
+            case 1:
+                request.setType("product_wise");
+                request.setProductWiseDetails(new ProductWiseCouponRequest(seeder.randomProductId(),
+                    BigDecimal.valueOf(5 + i % 20)));
+                break;
+            default:
+                request.setType("bxgy");
+                request.setBxGyDetails(new BxGyCouponRequest(
+                    Arrays.asList(new BxGyCouponRequest.BuyGetProduct(seeder.randomProductId(), 1),
+                        new BxGyCouponRequest.BuyGetProduct(seeder.randomProductId(), 2)),
+                    Collections.singletonList(new BxGyCouponRequest.BuyGetProduct(seeder.randomProductId(), 1)),
+                    2));
+                break;
+            }
+            ndjson.append(new String(json(request), StandardCharsets.UTF_8)).append('\n');
+        }
+        couponService.createCouponsBulk(new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Cart-wise coupons every cart qualifies for, so applying them succeeds
+    private List<Long> createApplyTargets(CatalogSeeder seeder) {
+        List<Long> ids = new ArrayList<>(APPLY_TARGETS);
+        for (int i = 0; i < APPLY_TARGETS; i++) {
+            CreateCouponRequest request = new CreateCouponRequest();
+            request.setType("cart_wise");
+            request.setCartWiseDetails(new CartWiseCouponRequest(BigDecimal.ONE, BigDecimal.valueOf(1 + i)));
+            ids.add(couponService.createCoupon(request).getId());
+        }
+        return ids;
+    }
+
+    private CreateProductRequest productRequest(Random random) {
+        CreateProductRequest request = new CreateProductRequest("Load Product " + random.nextInt(1000000),
+            BigDecimal.valueOf(100 + random.nextInt(100000), 2));
+        request.setCategory("load-test");
+        return request;
+    }
+
+    private Long resultId(HttpResponse<byte[]> response) {
+        try {
+            JsonNode id = objectMapper.readTree(response.body()).path("result").path("id");
+            return id.isNumber() ? id.asLong() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest post(String path, byte[] body) {
+        return request(path).POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Content-Type", "application/json");
+    }
+
+    private byte[] json(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.couponManagement.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Open-model load generator: requests are started at a constant arrival rate
+ * whether or not earlier ones have completed, as independent users would
+ * send them. Each latency is measured from the moment its request was due,
+ * not from when it was actually sent, so a stalled server or a generator that
+ * falls behind shows up in the percentiles instead of silently lowering the
+ * load (coordinated omission).
+ */
+public class LoadGenerator {
+
+    private final HttpClient client;
+    private final List<Operation> operations = new ArrayList<>();
+    private int totalWeight;
+
+    public LoadGenerator(HttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Adds an operation picked for {@code weight} out of every total-weight
+     * requests. The factory may return null to skip its turn, in which case
+     * another operation is picked.
+     */
+    public LoadGenerator operation(String name, int weight, Function<Random, HttpRequest> requestFactory) {
+        return operation(name, weight, requestFactory, response -> {
+        });
+    }
+
+    /**
+     * As {@link #operation(String, int, Function)}, handing successful
+     * responses to {@code onSuccess}, for example to remember created ids.
+     */
+    public LoadGenerator operation(String name, int weight, Function<Random, HttpRequest> requestFactory,
+        Consumer<HttpResponse<byte[]>> onSuccess) {
+        operations.add(new Operation(name, weight, requestFactory, onSuccess));
+        totalWeight += weight;
+        return this;
+    }
+
+    /**
+     * Sends {@code ratePerSecond} requests a second for {@code duration}, then
+     * waits up to {@code drainTimeout} for the outstanding ones.
+     */
+    public LoadResult run(double ratePerSecond, Duration duration, Duration drainTimeout, long seed)
+        throws InterruptedException {
+        Random random = new Random(seed);
+        OperationStats overall = new OperationStats();
+        Map<String, OperationStats> stats = new LinkedHashMap<>();
+        for (Operation operation : operations) {
+            stats.put(operation.name, new OperationStats());
+        }
+        AtomicLong outstanding = new AtomicLong();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long sent = 0;
+
+        for (long due = start; due < end; due += intervalNanos) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = pick(random);
+            HttpRequest request = operation.requestFactory.apply(random);
+            for (int attempt = 0; request == null && attempt < operations.size(); attempt++) {
+                operation = pick(random);
+                request = operation.requestFactory.apply(random);
+            }
+            if (request == null) {
+                continue;
+            }
+            Operation sentOperation = operation;
+            OperationStats operationStats = stats.get(operation.name);
+            long dueNanos = due;
+            outstanding.incrementAndGet();
+            sent++;
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+                try {
+                    long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueNanos);
+                    operationStats.histogram.record(latencyMicros);
+                    overall.histogram.record(latencyMicros);
+                    if (error != null || response.statusCode() >= 400) {
+                        operationStats.errors.incrementAndGet();
+                        overall.errors.incrementAndGet();
+                    } else {
+                        sentOperation.onSuccess.accept(response);
+                    }
+                } finally {
+                    outstanding.decrementAndGet();
+                }
+            });
+        }
+        long sendingEnded = System.nanoTime();
+
+        long drainDeadline = sendingEnded + drainTimeout.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return new LoadResult(ratePerSecond, Duration.ofNanos(sendingEnded - start), sent, outstanding.get(), overall,
+            stats);
+    }
+
+    private Operation pick(Random random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            ticket -= operation.weight;
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("No operations");
+    }
+
+    private static final class Operation {
+
+        private final String name;
+        private final int weight;
+        private final Function<Random, HttpRequest> requestFactory;
+        private final Consumer<HttpResponse<byte[]>> onSuccess;
+
+        private Operation(String name, int weight, Function<Random, HttpRequest> requestFactory,
+            Consumer<HttpResponse<byte[]>> onSuccess) {
+            this.name = name;
+            this.weight = weight;
+            this.requestFactory = requestFactory;
+            this.onSuccess = onSuccess;
+        }
+    }
+
+    public static final class OperationStats {
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.couponManagement.loadtest;
+
+import com.couponManagement.loadtest.LoadGenerator.OperationStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latencies and errors of one {@link LoadGenerator} run, overall and per
+ * operation, written as a text table and as JSON.
+ */
+public class LoadResult {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final double targetRate;
+    private final Duration duration;
+    private final long sent;
+    private final long unfinished;
+    private final OperationStats overall;
+    private final Map<String, OperationStats> operations;
+
+    LoadResult(double targetRate, Duration duration, long sent, long unfinished, OperationStats overall,
+        Map<String, OperationStats> operations) {
+        this.targetRate = targetRate;
+        this.duration = duration;
+        this.sent = sent;
+        this.unfinished = unfinished;
+        this.overall = overall;
+        this.operations = operations;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public OperationStats getOverall() {
+        return overall;
+    }
+
+    public Map<String, OperationStats> getOperations() {
+        return operations;
+    }
+
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Target rate %.1f/s, sent %d in %.1f s (%.1f/s), %d unfinished%n", targetRate, sent,
+            duration.toMillis() / 1000.0, sent * 1000.0 / Math.max(1, duration.toMillis()), unfinished));
+        text.append(String.format("%-22s %9s %7s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "errors",
+            "mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Map.Entry<String, OperationStats> entry : operations.entrySet()) {
+            appendRow(text, entry.getKey(), entry.getValue());
+        }
+        appendRow(text, "all", overall);
+        return text.toString();
+    }
+
+    public Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("targetRatePerSecond", targetRate);
+        json.put("durationMillis", duration.toMillis());
+        json.put("sent", sent);
+        json.put("unfinished", unfinished);
+        json.put("overall", summary(overall));
+        Map<String, Object> perOperation = new LinkedHashMap<>();
+        for (Map.Entry<String, OperationStats> entry : operations.entrySet()) {
+            perOperation.put(entry.getKey(), summary(entry.getValue()));
+        }
+        json.put("operations", perOperation);
+        return json;
+    }
+
+    /**
+     * Writes {@code <name>.txt} and {@code <name>.json} to {@code directory}.
+     */
+    public void write(Path directory, String name, ObjectMapper objectMapper) throws IOException {
+        Files.createDirectories(directory);
+        Files.write(directory.resolve(name + ".txt"), toText().getBytes(StandardCharsets.UTF_8));
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(directory.resolve(name + ".json").toFile(), toJson());
+    }
+
+    private static void appendRow(StringBuilder text, String name, OperationStats stats) {
+        LatencyHistogram histogram = stats.getHistogram();
+        text.append(String.format("%-22s %9d %7d %9.2f", name, histogram.getCount(), stats.getErrors(),
+            histogram.getMeanMicros() / 1000));
+        for (double percentile : PERCENTILES) {
+            text.append(String.format(" %9.2f", histogram.getValueAtPercentile(percentile) / 1000.0));
+        }
+        text.append(String.format(" %9.2f%n", histogram.getMaxMicros() / 1000.0));
+    }
+
+    private static Map<String, Object> summary(OperationStats stats) {
+        LatencyHistogram histogram = stats.getHistogram();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getCount());
+        summary.put("errors", stats.getErrors());
+        summary.put("meanMicros", Math.round(histogram.getMeanMicros()));
+        summary.put("p50Micros", histogram.getValueAtPercentile(50));
+        summary.put("p90Micros", histogram.getValueAtPercentile(90));
+        summary.put("p99Micros", histogram.getValueAtPercentile(99));
+        summary.put("p999Micros", histogram.getValueAtPercentile(99.9));
+        summary.put("maxMicros", histogram.getMaxMicros());
+        return summary;
+    }
+}
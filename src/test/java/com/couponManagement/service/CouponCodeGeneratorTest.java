@@ -0,0 +1,85 @@
+package com.couponManagement.service;
+
+import com.couponManagement.engine.CouponCatalog;
+import com.couponManagement.entity.CouponCodeHighWater;
+import com.couponManagement.repository.CouponCodeHighWaterRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Generators built here stand in for restarted nodes sharing the database.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:codegenerator;DB_CLOSE_DELAY=-1",
+    "coupon.catalog.change-poll-interval-ms=0"
+})
+class CouponCodeGeneratorTest {
+
+    // One minute of ticks, the generator's lease length
+    private static final int LEASE_TICKS = 60_000 << 12;
+
+    @Autowired
+    private CouponCodeHighWaterRepository highWaterRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testRestartedNodeResumesAfterItsLease() {
+        CouponCodeGenerator first = generator(7, "", 0);
+        long firstTick = tick(first.nextCode());
+        long highWater = highWaterRepository.findById(7).map(CouponCodeHighWater::getNextTick).orElse(0L);
+        assertTrue(highWater > firstTick);
+
+        // As if the clock had stepped back past everything the first run issued
+        highWaterRepository.save(new CouponCodeHighWater(7, highWater + (3_600_000L << 12)));
+        CouponCodeGenerator restarted = generator(7, "", 0);
+        assertTrue(tick(restarted.nextCode()) >= highWater + (3_600_000L << 12));
+        assertTrue(tick(restarted.reserve(10).get(9)) > highWater);
+    }
+
+    @Test
+    void testProcessesSharingANodeIdSkipEachOthersLeases() {
+        CouponCodeGenerator first = generator(9, "", 0);
+        long firstTick = tick(first.nextCode());
+        // Starts past the first process's lease, then leases on from there
+        CouponCodeGenerator second = generator(9, "", 0);
+        long secondTick = tick(second.nextCode());
+        assertTrue(secondTick > firstTick);
+        long secondLeaseEnd = highWaterRepository.findById(9).map(CouponCodeHighWater::getNextTick).orElse(0L);
+
+        // Running past its own lease, the first process jumps over the second's
+        List<String> codes = first.reserve(LEASE_TICKS + 1);
+        assertTrue(tick(codes.get(0)) >= secondLeaseEnd);
+    }
+
+    @Test
+    void testNodeIdIsRequiredWithMultiNodeSettings() {
+        assertThrows(IllegalStateException.class, () -> generator(-1, "jdbc:h2:mem:replica", 0));
+        assertThrows(IllegalStateException.class,
+                () -> generator(-1, "", CouponCatalog.DEFAULT_CHANGE_POLL_INTERVAL_MILLIS));
+        // A single node may leave it unset and runs as node 0
+        assertEquals(0, Long.parseLong(generator(-1, "", 0).nextCode().substring("CPN".length())) & 1023);
+    }
+
+    private CouponCodeGenerator generator(int nodeId, String replicaUrls, long changePollIntervalMillis) {
+        CouponCodeGenerator generator = new CouponCodeGenerator(nodeId, false, replicaUrls,
+                changePollIntervalMillis, highWaterRepository, transactionManager);
+        generator.loadHighWater();
+        return generator;
+    }
+
+    private static long tick(String code) {
+        return Long.parseLong(code.substring("CPN".length())) >>> 10;
+    }
+}
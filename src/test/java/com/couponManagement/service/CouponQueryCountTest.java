@@ -0,0 +1,310 @@
+package com.couponManagement.service;
+
+import com.couponManagement.constants.CouponChangeType;
+import com.couponManagement.constants.CouponType;
+import com.couponManagement.dto.ApplicableCouponDto;
+import com.couponManagement.dto.BxGyCouponRequest;
+import com.couponManagement.dto.CacheStatisticsResponse;
+import com.couponManagement.dto.CartDto;
+import com.couponManagement.dto.CartItemDto;
+import com.couponManagement.dto.CouponDto;
+import com.couponManagement.dto.CreateCouponRequest;
+import com.couponManagement.dto.CreateProductRequest;
+import com.couponManagement.dto.ProductDto;
+import com.couponManagement.engine.BxGyRule;
+import com.couponManagement.engine.CouponCatalog;
+import com.couponManagement.engine.CouponChangeLog;
+import com.couponManagement.engine.ProductPriceCache;
+import com.couponManagement.engine.RuleCodec;
+import com.couponManagement.entity.BxGyCoupon;
+import com.couponManagement.entity.CartWiseCoupon;
+import com.couponManagement.entity.Coupon;
+import com.couponManagement.entity.CouponChange;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards against N+1 loading of BxGy product lists: listing coupons must take
+ * the same number of SQL statements however many BxGy coupons there are, and
+ * the compact catalog load must not touch the detail tables at all. Also
+ * checks which repeated reads the second-level and query caches absorb, and
+ * that catching up with the change log costs the same at any catalog size
+ * and that BxGy get-product prices are read with one query per request.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "coupon.hibernate-cache.statistics=true",
+    // No background catalog polls while statements are counted
+    "coupon.catalog.change-poll-interval-ms=0"
+})
+class CouponQueryCountTest {
+
+    @Autowired
+    private CouponService couponService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private CouponCatalog couponCatalog;
+
+    @Autowired
+    private CouponChangeLog couponChangeLog;
+
+    @Autowired
+    private ProductPriceCache productPriceCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void testListingBxGyCouponsUsesConstantStatementCount() {
+        createBxGyCoupons(3);
+        long listWithFew = statementsFor(() -> assertBxGyDetailsLoaded(couponService.getAllCoupons()));
+        long activeWithFew = statementsFor(() -> assertBxGyDetailsLoaded(couponService.getActiveCoupons()));
+        long catalogWithFew = statementsFor(couponCatalog::refresh);
+
+        createBxGyCoupons(20);
+        long listWithMany = statementsFor(() -> assertBxGyDetailsLoaded(couponService.getAllCoupons()));
+        long activeWithMany = statementsFor(() -> assertBxGyDetailsLoaded(couponService.getActiveCoupons()));
+        long catalogWithMany = statementsFor(couponCatalog::refresh);
+
+        // One query for the coupons and one per product list
+        assertEquals(3, listWithFew);
+        assertEquals(listWithFew, listWithMany);
+        assertEquals(activeWithFew, activeWithMany);
+        assertEquals(catalogWithFew, catalogWithMany);
+    }
+
+    @Test
+    void testCompactCatalogLoadReadsOnlyCouponsTable() {
+        List<CouponDto> created = createBxGyCoupons(3);
+        // The change-log version, then the coupons table alone
+        long compactLoad = statementsFor(couponCatalog::refresh);
+        assertEquals(2, compactLoad);
+        for (CouponDto coupon : created) {
+            BxGyRule rule = (BxGyRule) couponCatalog.snapshot().getRuleById(coupon.getId());
+            assertEquals(2, rule.getBuyCount());
+            assertEquals(2L, rule.getBuyProductId(1));
+            assertEquals(1, rule.getGetCount());
+            assertEquals(2, rule.getRepetitionLimit());
+        }
+
+        // Rows written before the encoding existed are compiled from their entities
+        Long legacyId = created.get(0).getId();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> entityManager
+            .createQuery("UPDATE Coupon c SET c.ruleEncoding = null WHERE c.id = :id")
+            .setParameter("id", legacyId)
+            .executeUpdate());
+        long fallbackLoad = statementsFor(couponCatalog::refresh);
+        assertEquals(5, fallbackLoad);
+        BxGyRule legacyRule = (BxGyRule) couponCatalog.snapshot().getRuleById(legacyId);
+        assertEquals(2, legacyRule.getBuyCount());
+        assertEquals(3L, legacyRule.getGetProductId(0));
+    }
+
+    @Test
+    void testCatalogCatchesUpFromChangeLog() {
+        createBxGyCoupons(3);
+        long startVersion = couponChangeLog.latestVersion();
+
+        // Written as another node would, without touching the local catalog
+        Coupon remote = saveCouponElsewhere();
+        assertNull(couponCatalog.snapshot().getRuleById(remote.getId()));
+        assertEquals(1, statementsFor(couponCatalog::refreshChanges));
+        assertNotNull(couponCatalog.snapshot().getRuleById(remote.getId()));
+
+        // Catching up reads only the new entries, however large the catalog
+        createBxGyCoupons(20);
+        deleteCouponElsewhere(remote.getId());
+        assertEquals(1, statementsFor(couponCatalog::refreshChanges));
+        assertNull(couponCatalog.snapshot().getRuleById(remote.getId()));
+
+        List<CouponChange> changes = couponChangeLog.changesAfter(startVersion, 100);
+        assertEquals(22, changes.size());
+        for (int i = 0; i < changes.size(); i++) {
+            assertEquals(startVersion + 1 + i, changes.get(i).getVersion().longValue());
+        }
+        assertEquals(CouponChangeType.CREATED, changes.get(0).getChangeType());
+        assertEquals(CouponChangeType.DELETED, changes.get(21).getChangeType());
+        assertEquals(startVersion + 22, couponChangeLog.latestVersion());
+
+        // Entries pruned past the catalog's version force a full reload
+        Coupon missed = saveCouponElsewhere();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> entityManager
+            .createQuery("DELETE FROM CouponChange c").executeUpdate());
+        saveCouponElsewhere();
+        assertTrue(statementsFor(couponCatalog::refreshChanges) > 1);
+        assertNotNull(couponCatalog.snapshot().getRuleById(missed.getId()));
+    }
+
+    @Test
+    void testRepeatedLookupsAreServedFromSecondLevelCache() {
+        CreateProductRequest productRequest = new CreateProductRequest("Cached Product", new BigDecimal("15.00"));
+        productRequest.setCategory("cache-test");
+        ProductDto product = productService.createProduct(productRequest);
+        productService.getProductById(product.getId());
+        assertEquals(0, statementsFor(() -> productService.getProductById(product.getId())));
+
+        productService.getProductsByCategory("cache-test");
+        assertEquals(0, statementsFor(() -> productService.getProductsByCategory("cache-test")));
+
+        // The coupon row itself needs its query, but BxGy product lists come
+        // from the collection cache
+        Long couponId = createBxGyCoupons(1).get(0).getId();
+        Runnable getCoupon = () -> assertBxGyDetailsLoaded(Collections.singletonList(couponService.getCouponById(couponId)));
+        assertEquals(3, statementsFor(getCoupon));
+        assertEquals(1, statementsFor(getCoupon));
+
+        productService.getProductsByCategory("cache-test");
+        CacheStatisticsResponse statistics = cacheStatisticsService.getCacheStatistics();
+        assertTrue(statistics.isStatisticsEnabled());
+        assertEquals(1, statistics.getQueryCache().getHitCount());
+        assertTrue(statistics.getSecondLevelCache().getHitCount() > 0);
+        assertTrue(statistics.getRegions().stream().anyMatch(
+            region -> region.getName().equals(BxGyCoupon.class.getName() + ".buyProducts") && region.getHitRatio() > 0));
+    }
+
+    @Test
+    void testBxGyGetProductPricesTakeOneQuery() {
+        Long buyFirst = createProduct("Buy First", "10.00");
+        Long buySecond = createProduct("Buy Second", "12.00");
+        Long getFirst = createProduct("Get First", "25.00");
+        Long getSecond = createProduct("Get Second", "40.00");
+        CartDto cart = new CartDto(Arrays.asList(
+            new CartItemDto(buyFirst.toString(), 4, new BigDecimal("10.00")),
+            new CartItemDto(buySecond.toString(), 4, new BigDecimal("12.00")),
+            new CartItemDto(getFirst.toString(), 2, new BigDecimal("25.00")),
+            new CartItemDto(getSecond.toString(), 2, new BigDecimal("40.00"))));
+
+        List<String> coupons = createSharedGetProductCoupons(3, buyFirst, buySecond, getFirst, getSecond);
+        productPriceCache.clear();
+        assertEquals(1, statementsFor(() -> assertApplicable(coupons, couponService.getApplicableCoupons(cart)
+            .getApplicableCoupons())));
+
+        // Many more coupons sharing the two get-products still need one query
+        coupons.addAll(createSharedGetProductCoupons(20, buyFirst, buySecond, getFirst, getSecond));
+        productPriceCache.clear();
+        assertEquals(1, statementsFor(() -> assertApplicable(coupons, couponService.getApplicableCoupons(cart)
+            .getApplicableCoupons())));
+        productPriceCache.clear();
+        assertEquals(1, statementsFor(() -> assertEquals(1, couponService.getBestCoupons(cart, 1)
+            .getApplicableCoupons().size())));
+    }
+
+    private Long createProduct(String name, String price) {
+        return productService.createProduct(new CreateProductRequest(name, new BigDecimal(price))).getId();
+    }
+
+    private List<String> createSharedGetProductCoupons(int count, Long buyFirst, Long buySecond,
+            Long getFirst, Long getSecond) {
+        // Two buy products and one get product, like the other BxGy coupons here
+        List<String> created = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CreateCouponRequest request = new CreateCouponRequest();
+            request.setType("bxgy");
+            request.setBxGyDetails(new BxGyCouponRequest(
+                Arrays.asList(new BxGyCouponRequest.BuyGetProduct(buyFirst, 1 + i % 2),
+                    new BxGyCouponRequest.BuyGetProduct(buySecond, 1)),
+                Arrays.asList(new BxGyCouponRequest.BuyGetProduct(i % 2 == 0 ? getFirst : getSecond, 1)),
+                1 + i % 3));
+            created.add(couponService.createCoupon(request).getCouponCode());
+        }
+        return created;
+    }
+
+    private void assertApplicable(List<String> couponCodes, List<ApplicableCouponDto> applicable) {
+        // Applicable coupons are identified by their codes
+        Set<String> applicableCodes = applicable.stream().map(ApplicableCouponDto::getCouponId).collect(Collectors.toSet());
+        for (String couponCode : couponCodes) {
+            assertTrue(applicableCodes.contains(couponCode), couponCode);
+        }
+    }
+
+    private Coupon saveCouponElsewhere() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Coupon coupon = new Coupon("REMOTE-" + UUID.randomUUID(), CouponType.CART_WISE);
+            coupon.setCartWiseDetails(new CartWiseCoupon(new BigDecimal("100"), new BigDecimal("10")));
+            coupon.setRuleEncoding(RuleCodec.encode(coupon));
+            entityManager.persist(coupon);
+            couponChangeLog.record(coupon, CouponChangeType.CREATED);
+            return coupon;
+        });
+    }
+
+    private void deleteCouponElsewhere(Long couponId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Coupon coupon = entityManager.find(Coupon.class, couponId);
+            coupon.setIsActive(false);
+            couponChangeLog.record(coupon, CouponChangeType.DELETED);
+        });
+    }
+
+    private List<CouponDto> createBxGyCoupons(int count) {
+        List<CouponDto> created = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CreateCouponRequest request = new CreateCouponRequest();
+            request.setType("bxgy");
+            request.setBxGyDetails(new BxGyCouponRequest(
+                Arrays.asList(new BxGyCouponRequest.BuyGetProduct(1L, 2), new BxGyCouponRequest.BuyGetProduct(2L, 1)),
+                Arrays.asList(new BxGyCouponRequest.BuyGetProduct(3L, 1)),
+                2));
+            created.add(couponService.createCoupon(request));
+        }
+        return created;
+    }
+
+    private void assertBxGyDetailsLoaded(List<CouponDto> coupons) {
+        // Touch every product list, as the JSON serializer would
+        for (CouponDto coupon : coupons) {
+            if (!CouponType.BXGY.name().equals(coupon.getType())) {
+                continue;
+            }
+            Object buyProducts = coupon.getDetails().get("buyProducts");
+            Object getProducts = coupon.getDetails().get("getProducts");
+            assertEquals(2, ((List<?>) buyProducts).size());
+            assertEquals(1, ((List<?>) getProducts).size());
+        }
+    }
+
+    private long statementsFor(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        // The surrounding transaction stands in for the web layer's open
+        // session, which keeps lazy lists loadable while the response is written
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+        return statistics.getPrepareStatementCount();
+    }
+}
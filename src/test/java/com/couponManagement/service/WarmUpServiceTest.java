@@ -0,0 +1,79 @@
+package com.couponManagement.service;
+
+import com.couponManagement.dto.CartWiseCouponRequest;
+import com.couponManagement.dto.CreateCouponRequest;
+import com.couponManagement.dto.WarmUpReport;
+import com.couponManagement.engine.ApplicableCouponsCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+    "coupon.warmup.enabled=true",
+    "coupon.warmup.carts=32",
+    "coupon.warmup.min-rounds=2",
+    "coupon.warmup.stable-rounds=1",
+    // Any amount of compilation counts as settled, so the round count is exact
+    "coupon.warmup.max-compilation-percent=100000"
+})
+class WarmUpServiceTest {
+
+    @Autowired
+    private WarmUpService warmUpService;
+
+    @Autowired
+    private CouponService couponService;
+
+    @Autowired
+    private ApplicableCouponsCache applicableCouponsCache;
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testWarmUpRunsBeforeReadiness() {
+        WarmUpReport startup = warmUpService.getReport();
+        assertEquals(WarmUpReport.STABLE, startup.getStatus());
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, applicationAvailability.getReadinessState());
+        assertEquals(LivenessState.CORRECT, applicationAvailability.getLivenessState());
+
+        CreateCouponRequest request = new CreateCouponRequest();
+        request.setType("cart_wise");
+        request.setCartWiseDetails(new CartWiseCouponRequest(new BigDecimal("50"), new BigDecimal("10")));
+        couponService.createCoupon(request);
+
+        WarmUpReport report = warmUpService.warmUp();
+        assertEquals(WarmUpReport.STABLE, report.getStatus());
+        assertEquals(32, report.getCarts());
+        assertEquals(2, report.getRounds());
+        assertEquals(64, report.getRequests());
+        assertEquals(0, report.getErrors());
+        assertNotNull(report.getFirstRound());
+        assertTrue(report.getLastRound().getP99Micros() <= report.getLastRound().getMaxMicros());
+        // Warm-up carts are not left in the result cache
+        assertEquals(0, applicableCouponsCache.size());
+        // nor in the service and evaluation meters
+        assertNotNull(meterRegistry.find("coupon.service").tag("method", "createCoupon").timer());
+        assertNull(meterRegistry.find("coupon.service").tag("method", "getApplicableCoupons").timer());
+        for (Timer timer : meterRegistry.find("coupon.evaluation").timers()) {
+            assertEquals(0, timer.count());
+        }
+    }
+}